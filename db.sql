@@ -11,12 +11,16 @@ CREATE TABLE users (
     email VARCHAR(255) NOT NULL,
     password_hash VARCHAR(255) NOT NULL,
     role_ VARCHAR(20) DEFAULT 'user',
+    -- Octeți folosiți (fișiere + upload-uri în curs); cota NULL înseamnă cota implicită din configurare
+    storage_used BIGINT NOT NULL DEFAULT 0,
+    storage_quota BIGINT,
     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
     
     CONSTRAINT uk_username UNIQUE (username),
     CONSTRAINT uk_email UNIQUE (email),
-    CONSTRAINT chk_role CHECK (role_ IN ('user', 'admin'))
+    CONSTRAINT chk_role CHECK (role_ IN ('user', 'admin')),
+    CONSTRAINT chk_storage_used CHECK (storage_used >= 0)
 );
 
 -- Tabela pentru fișiere
@@ -27,6 +31,9 @@ CREATE TABLE files (
     file_type VARCHAR(100),
     file_size BIGINT,
     file_path TEXT NOT NULL,
+    content_hash VARCHAR(64),
+    content_encoding VARCHAR(16),
+    stored_size BIGINT,
     uploaded_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
     share_token VARCHAR(255) UNIQUE,       
     share_enabled BOOLEAN DEFAULT FALSE,    
@@ -36,10 +43,112 @@ CREATE TABLE files (
         ON DELETE CASCADE
 );
 
+-- Conținut stocat o singură dată, adresat prin SHA-256 și numărat prin referințe din files
+CREATE TABLE blobs (
+    content_hash VARCHAR(64) PRIMARY KEY,
+    blob_size BIGINT NOT NULL,
+    -- Codificarea HTTP a octeților stocați (ex. gzip); NULL = stocat ca la upload
+    content_encoding VARCHAR(16),
+    stored_size BIGINT,
+    ref_count BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Ce a aflat procesarea de după upload despre conținut (tip real, dimensiuni, miniatură); un rând per blob
+CREATE TABLE blob_metadata (
+    content_hash VARCHAR(64) PRIMARY KEY,
+    status VARCHAR(16) NOT NULL,
+    detected_type VARCHAR(100),
+    width INT,
+    height INT,
+    page_count INT,
+    thumbnail_key VARCHAR(255),
+    attempts INT NOT NULL DEFAULT 0,
+    last_error TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT fk_blob_metadata_blob FOREIGN KEY (content_hash)
+        REFERENCES blobs(content_hash)
+        ON DELETE CASCADE,
+    CONSTRAINT chk_blob_metadata_status CHECK (status IN ('PENDING', 'DONE', 'FAILED'))
+);
+
+-- Sesiuni de upload pe bucăți (reluabile)
+CREATE TABLE upload_sessions (
+    upload_id VARCHAR(36) PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    file_name VARCHAR(255) NOT NULL,
+    file_type VARCHAR(100),
+    total_size BIGINT NOT NULL,
+    received_bytes BIGINT NOT NULL DEFAULT 0,
+    storage_name VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    -- Mutat înainte la fiecare bucată primită; sesiunile expirate sunt șterse periodic
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+
+    CONSTRAINT fk_upload_session_user FOREIGN KEY (user_id)
+        REFERENCES users(user_id)
+        ON DELETE CASCADE
+);
+
+-- Ștergeri de octeți stocați care așteaptă să fie executate (scrise în aceeași tranzacție cu ștergerea referinței)
+CREATE TABLE storage_tombstones (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    storage_key VARCHAR(1024) NOT NULL,
+    kind VARCHAR(16) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Statistici de acces per fișier (descărcări autentificate și prin link), scrise periodic în loturi din memorie
+CREATE TABLE file_access_stats (
+    file_id BIGINT PRIMARY KEY,
+    downloads BIGINT NOT NULL DEFAULT 0,
+    shared_downloads BIGINT NOT NULL DEFAULT 0,
+    last_accessed_at TIMESTAMP,
+
+    CONSTRAINT fk_file_access_stats_file FOREIGN KEY (file_id)
+        REFERENCES files(file_id)
+        ON DELETE CASCADE
+);
+
+-- Descărcări prin linkuri de partajare semnate; linkul în sine nu se salvează, contoarele sunt scrise periodic din memorie
+CREATE TABLE share_links (
+    link_id VARCHAR(36) PRIMARY KEY,
+    file_id BIGINT NOT NULL,
+    downloads BIGINT NOT NULL DEFAULT 0,
+    expires_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT fk_share_link_file FOREIGN KEY (file_id)
+        REFERENCES files(file_id)
+        ON DELETE CASCADE
+);
+
 -- Indexuri pentru optimizarea performanței
 CREATE INDEX idx_files_user_id ON files(user_id);
 CREATE INDEX idx_users_username ON users(username);
 CREATE INDEX idx_users_email ON users(email);
 CREATE INDEX idx_files_share_token ON files(share_token); 
 CREATE INDEX idx_files_share_enabled ON files(share_enabled); 
+CREATE INDEX idx_upload_sessions_user_id ON upload_sessions(user_id);
+CREATE INDEX idx_upload_sessions_expires_at ON upload_sessions(expires_at);
+CREATE INDEX idx_files_content_hash ON files(content_hash);
+CREATE INDEX idx_storage_tombstones_due ON storage_tombstones(next_attempt_at);
+CREATE INDEX idx_blob_metadata_pending ON blob_metadata(updated_at) WHERE status = 'PENDING';
+CREATE INDEX idx_share_links_file_id ON share_links(file_id);
+CREATE INDEX idx_share_links_expires_at ON share_links(expires_at);
+CREATE INDEX idx_file_access_stats_downloads ON file_access_stats(downloads DESC);
+CREATE INDEX idx_file_access_stats_last_accessed ON file_access_stats(last_accessed_at DESC);
+
+-- Indexuri pentru listarea paginată (keyset) a fișierelor unui utilizator
+CREATE INDEX idx_files_user_uploaded ON files(user_id, uploaded_at DESC, file_id DESC);
+CREATE INDEX idx_files_user_size ON files(user_id, file_size DESC, file_id DESC);
+CREATE INDEX idx_files_user_type_uploaded ON files(user_id, file_type, uploaded_at DESC, file_id DESC);
+CREATE INDEX idx_files_user_name_prefix ON files(user_id, file_name text_pattern_ops);
+CREATE INDEX idx_files_user_shared_uploaded ON files(user_id, uploaded_at DESC, file_id DESC) WHERE share_enabled;
 
@@ -0,0 +1,109 @@
+package com.example.demo.service;
+
+import com.example.demo.benchmarks.TempFiles;
+import com.example.demo.model.dto.FileDTO;
+import com.example.demo.model.entity.File;
+import com.example.demo.model.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping a large listing to DTOs: {@link FileService#convertToDTO} over loaded entities against the row-by-row
+ * constructor calls the {@code findDtosByUserId} projection makes. Hibernate's own cost of materialising
+ * entities (and their user proxies) comes on top of the first variant and is not measured here.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileListingBenchmark {
+
+    private static final String BASE_URL = "http://localhost:8080/api";
+
+    @Param({"10000"})
+    public int files;
+
+    private Path uploadDir;
+    private FileService fileService;
+    private List<File> entities;
+
+    @Setup
+    public void setUp() throws IOException {
+        uploadDir = Files.createTempDirectory("listing-bench");
+        fileService = new FileService(null, null, null, null, null, null, null, null, null, null, null, new SimpleMeterRegistry(),
+                uploadDir.toString(), DataSize.ofMegabytes(200));
+        ReflectionTestUtils.setField(fileService, "baseUrl", BASE_URL);
+
+        User user = new User();
+        user.setId(1L);
+        entities = new ArrayList<>(files);
+        for (int i = 0; i < files; i++) {
+            File file = new File();
+            file.setFileId((long) i);
+            file.setUser(user);
+            file.setFileName("document-" + i + ".pdf");
+            file.setFileType("application/pdf");
+            file.setFileSize(1024L * i);
+            file.setFilePath("blob:" + i);
+            file.setUploadedAt(LocalDateTime.now().minusMinutes(i));
+            // Every tenth file is shared, roughly what production listings look like
+            if (i % 10 == 0) {
+                file.setShareToken(UUID.randomUUID().toString());
+                file.setShareEnabled(true);
+            }
+            entities.add(file);
+        }
+    }
+
+    @Benchmark
+    public List<FileDTO> convertToDto() {
+        List<FileDTO> result = new ArrayList<>(entities.size());
+        for (File file : entities) {
+            result.add(fileService.convertToDTO(file));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<FileDTO> projectionConstructor() {
+        List<FileDTO> result = new ArrayList<>(entities.size());
+        for (File file : entities) {
+            FileDTO dto = new FileDTO(file.getFileId(), file.getFileName(), file.getFileType(), file.getFileSize(),
+                    file.getFilePath(), file.getUser().getId(), file.getShareToken(), file.isShareEnabled(), null);
+            if (dto.isShareEnabled() && dto.getShareToken() != null) {
+                dto.setShareUrl(BASE_URL + "/files/shared/" + dto.getShareToken());
+            }
+            result.add(dto);
+        }
+        return result;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        TempFiles.deleteRecursively(uploadDir);
+    }
+}
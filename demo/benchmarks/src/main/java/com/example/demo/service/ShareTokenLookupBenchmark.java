@@ -0,0 +1,139 @@
+package com.example.demo.service;
+
+import com.example.demo.config.CacheConfig;
+import com.example.demo.model.dto.SharedFileMetadata;
+import com.example.demo.model.entity.File;
+import com.example.demo.repository.FileRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Resolving a public share link: straight to the repository against {@link ShareTokenResolver} behind the
+ * {@value CacheConfig#SHARE_TOKENS} Caffeine cache, configured exactly as in the application. The repository is
+ * an in-memory stub; {@code dbLatencyMicros} adds a simulated round trip to each call that reaches it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ShareTokenLookupBenchmark {
+
+    @Param({"0", "200"})
+    public long dbLatencyMicros;
+
+    @Param({"1000"})
+    public int sharedFiles;
+
+    private AnnotationConfigApplicationContext context;
+    private FileRepository fileRepository;
+    private ShareTokenResolver shareTokenResolver;
+    private String[] tokens;
+
+    @Setup
+    public void setUp() {
+        Map<String, File> files = new HashMap<>();
+        tokens = new String[sharedFiles];
+        for (int i = 0; i < sharedFiles; i++) {
+            File file = new File();
+            file.setFileId((long) i);
+            file.setFileName("shared-" + i + ".jpg");
+            file.setFileType("image/jpeg");
+            file.setFileSize(512L * 1024);
+            file.setContentHash(UUID.randomUUID().toString().replace("-", ""));
+            file.setUploadedAt(LocalDateTime.now());
+            file.setShareToken(UUID.randomUUID().toString());
+            file.setShareEnabled(true);
+            files.put(file.getShareToken(), file);
+            tokens[i] = file.getShareToken();
+        }
+
+        fileRepository = stubRepository(files, dbLatencyMicros);
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(FileRepository.class, () -> fileRepository);
+        context.register(CachingConfig.class, ShareTokenResolver.class);
+        context.refresh();
+        shareTokenResolver = context.getBean(ShareTokenResolver.class);
+    }
+
+    @Benchmark
+    public Optional<SharedFileMetadata> uncached() {
+        return fileRepository.findByShareToken(nextToken()).map(SharedFileMetadata::from);
+    }
+
+    @Benchmark
+    public Optional<SharedFileMetadata> cached() {
+        return shareTokenResolver.resolve(nextToken());
+    }
+
+    private String nextToken() {
+        return tokens[ThreadLocalRandom.current().nextInt(tokens.length)];
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private static FileRepository stubRepository(Map<String, File> files, long latencyMicros) {
+        long latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+        return (FileRepository) Proxy.newProxyInstance(FileRepository.class.getClassLoader(),
+                new Class<?>[] {FileRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findByShareToken" -> {
+                        if (latencyNanos > 0) {
+                            LockSupport.parkNanos(latencyNanos);
+                        }
+                        yield Optional.ofNullable(files.get((String) args[0]));
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "StubFileRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Configuration
+    @EnableCaching
+    static class CachingConfig {
+
+        @Bean
+        CacheManager cacheManager() {
+            CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+            new CacheConfig()
+                    .shareTokenCacheCustomizer(10_000, Duration.ofMinutes(5), Duration.ofSeconds(30))
+                    .customize(cacheManager);
+            return cacheManager;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.demo.storage;
+
+import com.example.demo.benchmarks.TempFiles;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serving a stored file, written into a sink file so every variant pays for the same destination:
+ * <ul>
+ *     <li>{@code urlResource}: the original {@link UrlResource} download path;</li>
+ *     <li>{@code fileSystemResource}: what {@link BlobStore#open} returns for local backends;</li>
+ *     <li>{@code storageResource}: the backend-agnostic {@link StorageResource};</li>
+ *     <li>{@code decodingResource}: a gzip-at-rest blob decoded on the fly;</li>
+ *     <li>{@code channelTransfer}: {@link FileChannel#transferTo}, the kernel copy behind the sendfile path.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DownloadStreamingBenchmark {
+
+    private static final String KEY = "blob";
+    private static final String GZIP_KEY = "blob.gz";
+
+    @Param({"65536", "1048576", "16777216"})
+    public int size;
+
+    private Path directory;
+    private Path source;
+    private long gzipSize;
+    private StorageBackend backend;
+    private FileChannel sink;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("download-bench");
+        backend = new LocalStorageBackend(directory.resolve("store"));
+        source = directory.resolve("store").resolve(KEY);
+
+        // Half random, half repetitive, so the gzip variant has something to decode
+        byte[] content = new byte[size];
+        ThreadLocalRandom.current().nextBytes(content);
+        for (int i = size / 2; i < size; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        Files.write(source, content);
+
+        Path gzip = directory.resolve("store").resolve(GZIP_KEY);
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip))) {
+            out.write(content);
+        }
+        gzipSize = Files.size(gzip);
+
+        sink = FileChannel.open(directory.resolve("sink"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    @Benchmark
+    public long urlResource() throws IOException {
+        return copy(new UrlResource(source.toUri()));
+    }
+
+    @Benchmark
+    public long fileSystemResource() throws IOException {
+        return copy(new FileSystemResource(source));
+    }
+
+    @Benchmark
+    public long storageResource() throws IOException {
+        return copy(new StorageResource(backend, KEY, size));
+    }
+
+    @Benchmark
+    public long decodingResource() throws IOException {
+        return copy(new DecodingResource(new StorageResource(backend, GZIP_KEY, gzipSize), ContentCodec.GZIP, size));
+    }
+
+    @Benchmark
+    public long channelTransfer() throws IOException {
+        sink.position(0);
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, sink);
+            }
+            return position;
+        }
+    }
+
+    private long copy(Resource resource) throws IOException {
+        // Overwrite in place rather than truncating per invocation, which JMH cannot time reliably
+        sink.position(0);
+        try (InputStream in = resource.getInputStream()) {
+            return in.transferTo(Channels.newOutputStream(sink));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        sink.close();
+        TempFiles.deleteRecursively(directory);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.storage;
+
+import com.example.demo.benchmarks.TempFiles;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Getting an uploaded file from the container's temp file into storage, across file sizes. Reports the average
+ * time per file; divide the size by it for throughput.
+ * <ul>
+ *     <li>{@code streamCopy}: the original {@code Files.copy(InputStream, Path)} path, no hashing;</li>
+ *     <li>{@code copyThenHash}: a copy followed by a second read for the hash;</li>
+ *     <li>{@code hashWhileCopying}: a single pass through a {@link DigestInputStream}, what {@link BlobStore#stage}
+ *     does;</li>
+ *     <li>{@code channelCopy}: {@link FileChannel#transferTo}, letting the kernel copy, with no hash.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class UploadCopyBenchmark {
+
+    @Param({"65536", "1048576", "16777216"})
+    public int size;
+
+    private Path directory;
+    private Path source;
+    private Path target;
+    private BlobStore blobStore;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("upload-bench");
+        source = directory.resolve("source");
+        target = directory.resolve("target");
+        byte[] content = new byte[size];
+        ThreadLocalRandom.current().nextBytes(content);
+        Files.write(source, content);
+        blobStore = new BlobStore(null, null, null, null, null, directory.toString());
+    }
+
+    @Benchmark
+    public long streamCopy() throws IOException {
+        try (InputStream in = Files.newInputStream(source)) {
+            return Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Benchmark
+    public String copyThenHash() throws IOException {
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        return blobStore.hash(target);
+    }
+
+    @Benchmark
+    public String hashWhileCopying() throws IOException {
+        MessageDigest digest = BlobStore.newDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(source), digest);
+             OutputStream out = Files.newOutputStream(target)) {
+            in.transferTo(out);
+        }
+        return BlobStore.toHex(digest);
+    }
+
+    @Benchmark
+    public long channelCopy() throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+            return position;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        TempFiles.deleteRecursively(directory);
+    }
+}
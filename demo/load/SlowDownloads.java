@@ -0,0 +1,253 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opens many concurrent downloads that each read slowly, like mobile clients on a poor link, and reports how
+ * many the server kept streaming at the same time.
+ *
+ * <p>Run against a started server once with {@code VIRTUAL_THREADS_ENABLED=false} and once with it on:
+ * <pre>
+ * java demo/load/SlowDownloads.java --url http://localhost:8080/api/files/shared/&lt;token&gt; \
+ *     --clients 5000 --rate 8192 --hold 60
+ * </pre>
+ * Add {@code --bearer <jwt>} for endpoints that need authentication. Raise {@code ulimit -n} on both sides first.
+ */
+public class SlowDownloads {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        URI url = URI.create(required(options, "url"));
+        int clients = Integer.parseInt(options.getOrDefault("clients", "1000"));
+        int rate = Integer.parseInt(options.getOrDefault("rate", "8192"));
+        Duration hold = Duration.ofSeconds(Long.parseLong(options.getOrDefault("hold", "60")));
+        Duration rampUp = Duration.ofSeconds(Long.parseLong(options.getOrDefault("ramp-up", "10")));
+        String bearer = options.get("bearer");
+
+        Stats stats = new Stats();
+        CountDownLatch done = new CountDownLatch(clients);
+        long start = System.nanoTime();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                long delayNanos = rampUp.toNanos() * i / clients;
+                executor.submit(() -> {
+                    try {
+                        sleepUntil(start + delayNanos);
+                        new Client(url, bearer, rate, hold, stats).run();
+                    } finally {
+                        done.countDown();
+                    }
+                    return null;
+                });
+            }
+
+            Thread reporter = Thread.ofPlatform().daemon().start(() -> {
+                while (done.getCount() > 0) {
+                    System.out.printf("t=%3ds streaming=%d (peak %d) completed=%d failed=%d%n",
+                            Duration.ofNanos(System.nanoTime() - start).toSeconds(),
+                            stats.streaming.get(), stats.peakStreaming.get(), stats.completed.sum(), stats.failed.sum());
+                    try {
+                        Thread.sleep(5000);
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                }
+            });
+            done.await();
+            reporter.interrupt();
+        }
+
+        stats.print(clients);
+    }
+
+    private static final class Client {
+
+        private final URI url;
+        private final String bearer;
+        private final int rate;
+        private final Duration hold;
+        private final Stats stats;
+
+        Client(URI url, String bearer, int rate, Duration hold, Stats stats) {
+            this.url = url;
+            this.bearer = bearer;
+            this.rate = rate;
+            this.hold = hold;
+            this.stats = stats;
+        }
+
+        void run() {
+            long sent = System.nanoTime();
+            boolean streaming = false;
+            try (Socket socket = new Socket()) {
+                // A small receive window makes the server feel the slow reader instead of buffering the file here
+                socket.setReceiveBufferSize(Math.max(rate, 4096));
+                socket.connect(new InetSocketAddress(url.getHost(), url.getPort() == -1 ? 80 : url.getPort()), 10_000);
+                socket.setSoTimeout(60_000);
+                writeRequest(socket.getOutputStream());
+
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                int status = readStatusAndHeaders(in);
+                stats.timeToFirstByteMillis.add((System.nanoTime() - sent) / 1_000_000);
+                stats.statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+                if (status / 100 != 2) {
+                    stats.failed.increment();
+                    return;
+                }
+
+                streaming = true;
+                stats.startStreaming();
+                readSlowly(in);
+                stats.completed.increment();
+            } catch (IOException ex) {
+                stats.failed.increment();
+                stats.errors.computeIfAbsent(ex.getClass().getSimpleName(), key -> new LongAdder()).increment();
+            } finally {
+                if (streaming) {
+                    stats.streaming.decrementAndGet();
+                }
+            }
+        }
+
+        private void writeRequest(OutputStream out) throws IOException {
+            String path = url.getRawPath() + (url.getRawQuery() != null ? "?" + url.getRawQuery() : "");
+            StringBuilder request = new StringBuilder()
+                    .append("GET ").append(path).append(" HTTP/1.1\r\n")
+                    .append("Host: ").append(url.getAuthority()).append("\r\n")
+                    .append("Connection: close\r\n");
+            if (bearer != null) {
+                request.append("Authorization: Bearer ").append(bearer).append("\r\n");
+            }
+            out.write(request.append("\r\n").toString().getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+
+        private int readStatusAndHeaders(InputStream in) throws IOException {
+            StringBuilder head = new StringBuilder();
+            int b;
+            while ((b = in.read()) != -1) {
+                head.append((char) b);
+                if (head.length() >= 4 && head.lastIndexOf("\r\n\r\n") == head.length() - 4) {
+                    break;
+                }
+            }
+            String statusLine = head.toString().split("\r\n", 2)[0];
+            String[] parts = statusLine.split(" ");
+            if (parts.length < 2) {
+                throw new IOException("Malformed response: " + statusLine);
+            }
+            return Integer.parseInt(parts[1]);
+        }
+
+        private void readSlowly(InputStream in) throws IOException {
+            byte[] buffer = new byte[Math.min(rate, 64 * 1024)];
+            long deadline = System.nanoTime() + hold.toNanos();
+            long tick = System.nanoTime();
+            while (System.nanoTime() < deadline) {
+                int budget = rate;
+                while (budget > 0) {
+                    int read = in.read(buffer, 0, Math.min(buffer.length, budget));
+                    if (read == -1) {
+                        return;
+                    }
+                    budget -= read;
+                    stats.bytes.add(read);
+                }
+                tick += 1_000_000_000L;
+                sleepUntil(tick);
+            }
+        }
+    }
+
+    private static final class Stats {
+
+        final AtomicInteger streaming = new AtomicInteger();
+        final AtomicInteger peakStreaming = new AtomicInteger();
+        final LongAdder completed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        final ConcurrentLinkedQueue<Long> timeToFirstByteMillis = new ConcurrentLinkedQueue<>();
+
+        void startStreaming() {
+            int now = streaming.incrementAndGet();
+            peakStreaming.accumulateAndGet(now, Math::max);
+        }
+
+        void print(int clients) {
+            List<Long> ttfb = new ArrayList<>(timeToFirstByteMillis);
+            ttfb.sort(null);
+            System.out.println();
+            System.out.printf("clients               %d%n", clients);
+            System.out.printf("peak concurrent       %d%n", peakStreaming.get());
+            System.out.printf("completed / failed    %d / %d%n", completed.sum(), failed.sum());
+            System.out.printf("bytes received        %d%n", bytes.sum());
+            System.out.printf("time to first byte    p50=%dms p99=%dms max=%dms%n",
+                    percentile(ttfb, 0.50), percentile(ttfb, 0.99), percentile(ttfb, 1.0));
+            System.out.println("statuses              " + snapshot(statuses));
+            System.out.println("errors                " + snapshot(errors));
+        }
+
+        private static long percentile(List<Long> sorted, double p) {
+            if (sorted.isEmpty()) {
+                return 0;
+            }
+            return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(p * sorted.size()) - 1));
+        }
+
+        private static <K> Map<K, Long> snapshot(Map<K, LongAdder> counters) {
+            Map<K, Long> result = new HashMap<>();
+            counters.forEach((key, value) -> result.put(key, value.sum()));
+            return result;
+        }
+    }
+
+    private static void sleepUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            try {
+                Thread.sleep(Duration.ofNanos(remaining));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected an option, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static String required(Map<String, String> options, String name) {
+        String value = options.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing --" + name);
+        }
+        return value;
+    }
+}
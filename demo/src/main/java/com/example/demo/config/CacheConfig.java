@@ -0,0 +1,78 @@
+package com.example.demo.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NullValue;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Caches not covered by {@code spring.cache.caffeine.spec} get their own size and expiry here.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String SHARE_TOKENS = "shareTokens";
+    public static final String SHARED_FILES = "sharedFiles";
+    public static final String AUTH_USERS = "authUsers";
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> shareTokenCacheCustomizer(
+            @Value("${cache.share-tokens.maximum-size:10000}") long maximumSize,
+            @Value("${cache.share-tokens.ttl:5m}") Duration ttl,
+            @Value("${cache.share-tokens.negative-ttl:30s}") Duration negativeTtl) {
+        return cacheManager -> {
+            cacheManager.registerCustomCache(SHARE_TOKENS, Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfter(new PositiveNegativeExpiry(ttl, negativeTtl))
+                    .recordStats()
+                    .build());
+            // Signed share links resolve their file by id, with the same bounds
+            cacheManager.registerCustomCache(SHARED_FILES, Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfter(new PositiveNegativeExpiry(ttl, negativeTtl))
+                    .recordStats()
+                    .build());
+        };
+    }
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> authUserCacheCustomizer(
+            @Value("${cache.auth-users.maximum-size:10000}") long maximumSize,
+            @Value("${cache.auth-users.ttl:60s}") Duration ttl) {
+        return cacheManager -> cacheManager.registerCustomCache(AUTH_USERS, Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build());
+    }
+
+    /**
+     * Unknown keys are cached as {@link NullValue}; they expire sooner so a token created right after a miss
+     * does not stay invisible for the full TTL on other nodes.
+     */
+    private record PositiveNegativeExpiry(Duration ttl, Duration negativeTtl) implements Expiry<Object, Object> {
+
+        @Override
+        public long expireAfterCreate(Object key, Object value, long currentTime) {
+            return (value instanceof NullValue ? negativeTtl : ttl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.config;
+
+import com.example.demo.storage.DeletionQueue;
+import com.example.demo.web.VirtualThreadPinningMonitor;
+import com.example.demo.web.ZeroCopyDownloadHandler;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Publishes counters that components already keep for their admin endpoints. Request-path instrumentation lives
+ * with the code it measures ({@code TransferMetricsFilter}, {@code MeteredStorageBackend}, the JWT filter).
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder sendfileMetrics(ZeroCopyDownloadHandler zeroCopyDownloadHandler) {
+        return registry -> {
+            FunctionCounter.builder("transfer.sendfile.transfers", zeroCopyDownloadHandler,
+                            handler -> handler.getStats().getSendfileTransfers())
+                    .description("Downloads handed to the connector for sendfile")
+                    .register(registry);
+            FunctionCounter.builder("transfer.sendfile.bytes", zeroCopyDownloadHandler,
+                            handler -> handler.getStats().getSendfileBytes())
+                    .baseUnit("bytes")
+                    .register(registry);
+            FunctionCounter.builder("transfer.sendfile.fallbacks", zeroCopyDownloadHandler,
+                            handler -> handler.getStats().getStreamedFallbacks())
+                    .description("Large downloads that could not use sendfile and were streamed")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder deletionQueueMetrics(DeletionQueue deletionQueue) {
+        return registry -> {
+            Gauge.builder("storage.deletion.pending", deletionQueue, DeletionQueue::pending)
+                    .description("Tombstones waiting to be deleted from storage, as of the last sweep")
+                    .register(registry);
+            FunctionCounter.builder("storage.deletion.completed", deletionQueue, DeletionQueue::completed)
+                    .register(registry);
+            FunctionCounter.builder("storage.deletion.failed.attempts", deletionQueue, DeletionQueue::failedAttempts)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder virtualThreadPinningMetrics(ObjectProvider<VirtualThreadPinningMonitor> pinningMonitor) {
+        return registry -> pinningMonitor.ifAvailable(monitor ->
+                FunctionCounter.builder("jvm.threads.virtual.pinned", monitor, VirtualThreadPinningMonitor::pinnedEvents)
+                        .description("Virtual threads pinned to their carrier for longer than the threshold")
+                        .register(registry));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Limits applied by {@code RateLimitFilter} to download endpoints. Every limit has a request rate and a
+ * bandwidth; zero disables that dimension.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private static final Limit UNLIMITED = new Limit();
+
+    private boolean enabled = true;
+
+    /**
+     * Buckets idle for this long are dropped and start full again.
+     */
+    private Duration idleExpiry = Duration.ofMinutes(10);
+
+    /**
+     * Upper bound on tracked keys, so spoofed or rotating addresses cannot grow the table without limit.
+     */
+    private long maxTrackedKeys = 100_000;
+
+    /**
+     * Per client IP, for requests without an authenticated user.
+     */
+    private Limit anonymous = new Limit();
+
+    /**
+     * Per share token, shared by every client of the link.
+     */
+    private Limit shareToken = new Limit();
+
+    /**
+     * Per user id, by role; roles not listed fall back to {@code default}.
+     */
+    private Map<String, Limit> roles = new HashMap<>();
+
+    public Limit forRole(String role) {
+        return roles.entrySet().stream()
+                .filter(entry -> entry.getKey().equalsIgnoreCase(role))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElseGet(() -> roles.getOrDefault("default", UNLIMITED));
+    }
+
+    @Data
+    public static class Limit {
+
+        private double requestsPerSecond;
+
+        /**
+         * Requests that may arrive at once after an idle period.
+         */
+        private int burst = 1;
+
+        private DataSize bytesPerSecond = DataSize.ofBytes(0);
+
+        /**
+         * Bytes that may be written at full speed before shaping starts.
+         */
+        private DataSize byteBurst = DataSize.ofKilobytes(256);
+    }
+}
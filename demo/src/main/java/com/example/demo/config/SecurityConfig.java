@@ -41,8 +41,13 @@ public class SecurityConfig {
                                 "/test/public",
                                 "/api/files/shared/**",
                                 "/files/shared/**",
-                                "/error"
+                                "/api/files/s/**",
+                                "/files/s/**",
+                                "/error",
+                                "/actuator/health"
                         ).permitAll()
+                        // Includes /actuator/prometheus: a scrape must not be a free way to load the service
+                        .requestMatchers("/actuator/**").hasRole("admin")
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session
@@ -65,8 +70,10 @@ public class SecurityConfig {
         ));
 
 	configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type"));
-        configuration.setExposedHeaders(List.of("Authorization"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type",
+                "Range", "If-Range", "If-None-Match", "If-Modified-Since"));
+        configuration.setExposedHeaders(List.of("Authorization", "Upload-Offset",
+                "ETag", "Last-Modified", "Accept-Ranges", "Content-Range", "Content-Disposition"));
         configuration.setAllowCredentials(true); // Keep this enabled
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
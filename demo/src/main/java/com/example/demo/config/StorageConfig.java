@@ -0,0 +1,92 @@
+package com.example.demo.config;
+
+import com.example.demo.storage.LocalStorageBackend;
+import com.example.demo.storage.MeteredStorageBackend;
+import com.example.demo.storage.S3StorageBackend;
+import com.example.demo.storage.ShardedLocalStorageBackend;
+import com.example.demo.storage.StorageBackend;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Paths;
+
+/**
+ * Selects the blob {@link StorageBackend} with {@code storage.backend}: {@code sharded} (hash-prefixed directory
+ * tree, default), {@code local} (flat directory) or {@code s3} (any S3-compatible endpoint, e.g. a local MinIO).
+ * Whichever is chosen is wrapped in a {@link MeteredStorageBackend}.
+ */
+@Slf4j
+@Configuration
+public class StorageConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+    public StorageBackend localStorageBackend(@Value("${file.upload-dir}") String uploadDir,
+                                              MeterRegistry meterRegistry) throws IOException {
+        return new MeteredStorageBackend(new LocalStorageBackend(Paths.get(uploadDir)), meterRegistry, "local");
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "sharded", matchIfMissing = true)
+    public StorageBackend shardedStorageBackend(@Value("${file.upload-dir}") String uploadDir,
+                                                @Value("${storage.sharded.depth:2}") int depth,
+                                                @Value("${storage.sharded.width:2}") int width,
+                                                MeterRegistry meterRegistry) throws IOException {
+        ShardedLocalStorageBackend backend = new ShardedLocalStorageBackend(Paths.get(uploadDir), depth, width);
+        int moved = backend.migrateFlatObjects();
+        if (moved > 0) {
+            log.info("Moved {} objects from the flat layout into shard directories", moved);
+        }
+        return new MeteredStorageBackend(backend, meterRegistry, "sharded");
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "s3")
+    public S3Client s3Client(@Value("${storage.s3.endpoint:}") String endpoint,
+                             @Value("${storage.s3.region:us-east-1}") String region,
+                             @Value("${storage.s3.access-key:}") String accessKey,
+                             @Value("${storage.s3.secret-key:}") String secretKey,
+                             @Value("${storage.s3.path-style-access:true}") boolean pathStyleAccess) {
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .serviceConfiguration(S3Configuration.builder()
+                        .pathStyleAccessEnabled(pathStyleAccess)
+                        .build());
+
+        if (StringUtils.hasText(endpoint)) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+
+        if (StringUtils.hasText(accessKey)) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create(accessKey, secretKey)));
+        } else {
+            builder.credentialsProvider(DefaultCredentialsProvider.create());
+        }
+
+        return builder.build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "s3")
+    public StorageBackend s3StorageBackend(S3Client s3Client,
+                                           @Value("${storage.s3.bucket}") String bucket,
+                                           @Value("${storage.s3.prefix:}") String prefix,
+                                           MeterRegistry meterRegistry) {
+        return new MeteredStorageBackend(new S3StorageBackend(s3Client, bucket, prefix), meterRegistry, "s3");
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.dto.FileDTO;
+import com.example.demo.model.dto.UploadSessionDTO;
+import com.example.demo.service.ChunkedUploadService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/files/uploads")
+@RequiredArgsConstructor
+public class ChunkedUploadController {
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    @PostMapping
+    @PreAuthorize("#userId == authentication.principal.id")
+    public ResponseEntity<UploadSessionDTO> initUpload(
+            @RequestParam Long userId,
+            @RequestParam String fileName,
+            @RequestParam long fileSize,
+            @RequestParam(required = false) String fileType) {
+        return ResponseEntity.ok(chunkedUploadService.initUpload(userId, fileName, fileType, fileSize));
+    }
+
+    @PutMapping("/{uploadId}")
+    @PreAuthorize("#userId == authentication.principal.id")
+    public ResponseEntity<UploadSessionDTO> uploadChunk(
+            @PathVariable String uploadId,
+            @RequestParam Long userId,
+            @RequestParam long offset,
+            InputStream body) {
+        return ResponseEntity.ok(chunkedUploadService.writeChunk(uploadId, userId, offset, body));
+    }
+
+    @GetMapping("/{uploadId}")
+    @PreAuthorize("#userId == authentication.principal.id")
+    public ResponseEntity<UploadSessionDTO> getUploadStatus(
+            @PathVariable String uploadId,
+            @RequestParam Long userId) {
+        return ResponseEntity.ok(chunkedUploadService.getUploadStatus(uploadId, userId));
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    @PreAuthorize("#userId == authentication.principal.id")
+    public ResponseEntity<FileDTO> completeUpload(
+            @PathVariable String uploadId,
+            @RequestParam Long userId) {
+        return ResponseEntity.ok(chunkedUploadService.completeUpload(uploadId, userId));
+    }
+
+    @DeleteMapping("/{uploadId}")
+    @PreAuthorize("#userId == authentication.principal.id")
+    public ResponseEntity<Void> abortUpload(
+            @PathVariable String uploadId,
+            @RequestParam Long userId) {
+        chunkedUploadService.abortUpload(uploadId, userId);
+        return ResponseEntity.noContent().build();
+    }
+}
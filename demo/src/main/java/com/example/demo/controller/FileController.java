@@ -1,18 +1,43 @@
 package com.example.demo.controller;
 
+import com.example.demo.exception.InvalidRequestException;
+import com.example.demo.model.dto.BulkItemResult;
 import com.example.demo.model.dto.FileDTO;
+import com.example.demo.model.dto.FileDownload;
+import com.example.demo.model.dto.FileIdsRequest;
+import com.example.demo.model.dto.FileListQuery;
+import com.example.demo.model.dto.FileMetadataDTO;
+import com.example.demo.model.dto.FilePage;
+import com.example.demo.model.dto.HotFileDTO;
+import com.example.demo.model.dto.SignedShareLinkDTO;
+import com.example.demo.model.dto.StorageGcReport;
+import com.example.demo.model.dto.TransferStatsDTO;
+import com.example.demo.service.FileAccessTracker;
 import com.example.demo.service.FileService;
+import com.example.demo.service.PreviewService.PreviewRef;
+import com.example.demo.service.StorageGarbageCollector;
+import com.example.demo.web.DownloadCountPolicy;
+import com.example.demo.web.ZeroCopyDownloadHandler;
+import com.example.demo.web.ZipArchiveWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.CacheControl;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @RestController
@@ -20,7 +45,14 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class FileController {
 
+    private static final int MAX_HOT_FILES = 1000;
+
     private final FileService fileService;
+    private final ZeroCopyDownloadHandler zeroCopyDownloadHandler;
+    private final DownloadCountPolicy downloadCountPolicy;
+    private final ZipArchiveWriter zipArchiveWriter;
+    private final StorageGarbageCollector storageGarbageCollector;
+    private final FileAccessTracker fileAccessTracker;
 
     @PostMapping("/upload")
     @PreAuthorize("isAuthenticated()")
@@ -36,17 +68,91 @@ public class FileController {
         return ResponseEntity.ok(fileService.getUserFiles(userId));
     }
 
+    @GetMapping("/user/{userId}/page")
+    @PreAuthorize("#userId == authentication.principal.id or hasRole('ROLE_admin')")
+    public ResponseEntity<FilePage> getUserFilesPage(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String fileType,
+            @RequestParam(required = false) String namePrefix,
+            @RequestParam(required = false) Boolean shared,
+            @RequestParam(defaultValue = "date") String sort,
+            @RequestParam(defaultValue = "desc") String order,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        FileListQuery query = FileListQuery.builder()
+                .fileType(fileType)
+                .namePrefix(namePrefix)
+                .shared(shared)
+                .sort(parseSortField(sort))
+                .descending(!"asc".equalsIgnoreCase(order))
+                .cursor(cursor)
+                .limit(limit)
+                .build();
+        return ResponseEntity.ok(fileService.listUserFiles(userId, query));
+    }
+
     @GetMapping("/download/{fileId}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Resource> downloadFile(
+            @PathVariable Long fileId,
+            @RequestParam Long userId,
+            @RequestHeader HttpHeaders requestHeaders,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        FileDownload download = fileService.downloadFile(fileId, userId,
+                sent -> countsAsDownload("download/" + fileId + "/" + userId, sent, requestHeaders, request));
+        return buildDownloadResponse(download, requestHeaders, request, response);
+    }
+
+    @GetMapping("/{fileId}/metadata")
+    @PreAuthorize("#userId == authentication.principal.id or hasRole('ROLE_admin')")
+    public ResponseEntity<FileMetadataDTO> getFileMetadata(
             @PathVariable Long fileId,
             @RequestParam Long userId) {
-        Resource resource = fileService.downloadFile(fileId, userId);
+        return ResponseEntity.ok(fileService.getFileMetadata(fileId, userId));
+    }
+
+    /**
+     * JPEG thumbnail of an image or PDF, at the smallest bucket covering {@code size}. The ETag depends only on
+     * the content and the bucket, so a revalidation is answered with 304 before the preview is loaded.
+     */
+    @GetMapping("/{fileId}/preview")
+    @PreAuthorize("#userId == authentication.principal.id or hasRole('ROLE_admin')")
+    public ResponseEntity<byte[]> getPreview(
+            @PathVariable Long fileId,
+            @RequestParam Long userId,
+            @RequestParam(defaultValue = "256") int size,
+            WebRequest webRequest) {
+        PreviewRef preview = fileService.previewOf(fileId, userId, size);
+        if (webRequest.checkNotModified(preview.eTag())) {
+            return null;
+        }
         return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename=\"" + resource.getFilename() + "\"")
-                .body(resource);
+                .contentType(MediaType.IMAGE_JPEG)
+                .eTag(preview.eTag())
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(1)).cachePrivate())
+                .body(fileService.loadPreview(preview));
+    }
+
+    /**
+     * Streams the selected files as one ZIP archive. Access is checked for all of them before the first byte is
+     * written, since the status can no longer change once streaming has started. The files count as downloaded
+     * only once the whole archive has been written.
+     */
+    @PostMapping("/download/zip")
+    @PreAuthorize("#userId == authentication.principal.id or hasRole('ROLE_admin')")
+    public ResponseEntity<StreamingResponseBody> downloadZip(
+            @RequestParam Long userId,
+            @RequestBody FileIdsRequest zipRequest) {
+        List<FileDownload> downloads = fileService.prepareArchive(zipRequest.getFileIds(), userId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"files.zip\"")
+                .body(out -> {
+                    zipArchiveWriter.write(downloads, out);
+                    zipRequest.getFileIds().stream().distinct()
+                            .forEach(fileId -> fileAccessTracker.recordDownload(fileId, false));
+                });
     }
 
 @DeleteMapping("/{fileId}")
@@ -58,6 +164,23 @@ public ResponseEntity<Void> deleteFile(
     return ResponseEntity.noContent().build();
 }
 
+    @PostMapping("/bulk/delete")
+    @PreAuthorize("#userId == authentication.principal.id or hasRole('ROLE_admin')")
+    public ResponseEntity<List<BulkItemResult>> deleteFiles(
+            @RequestParam Long userId,
+            @RequestBody FileIdsRequest bulkRequest) {
+        return ResponseEntity.ok(fileService.deleteFiles(bulkRequest.getFileIds(), userId));
+    }
+
+    @PostMapping("/bulk/share")
+    @PreAuthorize("#userId == authentication.principal.id or hasRole('ROLE_admin')")
+    public ResponseEntity<List<BulkItemResult>> setSharing(
+            @RequestParam Long userId,
+            @RequestParam boolean enabled,
+            @RequestBody FileIdsRequest bulkRequest) {
+        return ResponseEntity.ok(fileService.setSharing(bulkRequest.getFileIds(), userId, enabled));
+    }
+
     @PostMapping("/{fileId}/toggle-share")
     @PreAuthorize("#userId == authentication.principal.id")
     public ResponseEntity<FileDTO> toggleFileSharing(
@@ -67,13 +190,67 @@ public ResponseEntity<Void> deleteFile(
     }
 
     @GetMapping("/shared/{shareToken}")
-    public ResponseEntity<Resource> downloadSharedFile(@PathVariable String shareToken) {
-        Resource resource = fileService.downloadSharedFile(shareToken);
-        return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename=\"" + resource.getFilename() + "\"")
-                .body(resource);
+    public ResponseEntity<Resource> downloadSharedFile(
+            @PathVariable String shareToken,
+            @RequestHeader HttpHeaders requestHeaders,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        FileDownload download = fileService.downloadSharedFile(shareToken,
+                sent -> countsAsDownload("shared/" + shareToken, sent, requestHeaders, request));
+        return buildDownloadResponse(download, requestHeaders, request, response);
+    }
+
+    @PostMapping("/{fileId}/signed-share")
+    @PreAuthorize("#userId == authentication.principal.id or hasRole('ROLE_admin')")
+    public ResponseEntity<SignedShareLinkDTO> createSignedShareLink(
+            @PathVariable Long fileId,
+            @RequestParam Long userId,
+            @RequestParam(defaultValue = "P7D") Duration expiresIn,
+            @RequestParam(required = false) Integer maxDownloads) {
+        return ResponseEntity.ok(fileService.createSignedShareLink(fileId, userId, expiresIn, maxDownloads));
+    }
+
+    /**
+     * Signed share link. Only responses that {@link DownloadCountPolicy count as downloads} use up a limited link.
+     */
+    @GetMapping("/s/{token}")
+    public ResponseEntity<Resource> downloadSignedShare(
+            @PathVariable String token,
+            @RequestHeader HttpHeaders requestHeaders,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        FileDownload download = fileService.downloadSignedShare(token,
+                sent -> countsAsDownload("s/" + token, sent, requestHeaders, request));
+        return buildDownloadResponse(download, requestHeaders, request, response);
+    }
+
+    @GetMapping("/admin/transfer-stats")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<TransferStatsDTO> getTransferStats() {
+        return ResponseEntity.ok(zeroCopyDownloadHandler.getStats());
+    }
+
+    /**
+     * Most downloaded files, or the most recently accessed ones with {@code by=recent}.
+     */
+    @GetMapping("/admin/hot-files")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<List<HotFileDTO>> getHotFiles(
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "downloads") String by) {
+        if (limit < 1 || limit > MAX_HOT_FILES) {
+            throw new InvalidRequestException("limit must be between 1 and " + MAX_HOT_FILES);
+        }
+        if (!by.equals("downloads") && !by.equals("recent")) {
+            throw new InvalidRequestException("by must be 'downloads' or 'recent'");
+        }
+        return ResponseEntity.ok(fileAccessTracker.hotFiles(limit, by.equals("recent")));
+    }
+
+    @PostMapping("/admin/storage-gc")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<StorageGcReport> runStorageGc() {
+        return ResponseEntity.ok(storageGarbageCollector.run());
     }
 
 @PostMapping("/{fileId}/share")
@@ -90,4 +267,128 @@ public ResponseEntity<Map<String, String>> generateShareLink(
             throw e;
         }
     }
+
+    /**
+     * Large local files go out through sendfile when the connector supports it; the handler then owns the
+     * response and {@code null} tells Spring MVC that the request has been handled.
+     *
+     * <p>Otherwise Spring MVC answers conditional requests (304) from the ETag / Last-Modified headers and serves
+     * {@code Range} requests for {@link Resource} bodies as 206, including multipart/byteranges.
+     * The one case it does not cover is {@code If-Range}: when the validator is stale the client must get
+     * the whole entity, so the body is handed over as an {@link InputStreamResource}, which skips range handling.
+     *
+     * <p>Files stored compressed go out still encoded, with {@code Content-Encoding}, when the client accepts that
+     * coding. Range requests always get the decoded bytes so offsets refer to the original content.
+     */
+    private ResponseEntity<Resource> buildDownloadResponse(FileDownload download, HttpHeaders requestHeaders,
+                                                           HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        download = negotiateEncoding(download, requestHeaders);
+        boolean honourRange = ifRangeMatches(download, requestHeaders);
+        if (zeroCopyDownloadHandler.trySend(download, honourRange, request, response)) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .eTag(download.getETag())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + download.getFileName() + "\"");
+
+        if (download.getLastModified() != null) {
+            builder.lastModified(download.getLastModified());
+        }
+        if (download.getContentEncoding() != null) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, download.getContentEncoding());
+        }
+        if (download.isEncodingNegotiated()) {
+            builder.varyBy(HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        if (requestHeaders.containsKey(HttpHeaders.RANGE) && !honourRange) {
+            return builder
+                    .contentLength(download.getFileSize())
+                    .body(new InputStreamResource(download.getResource().getInputStream()));
+        }
+
+        return builder.body(download.getResource());
+    }
+
+    /**
+     * Asks the {@link DownloadCountPolicy} about the representation {@link #buildDownloadResponse} will send.
+     */
+    private boolean countsAsDownload(String scope, FileDownload download, HttpHeaders requestHeaders,
+                                     HttpServletRequest request) {
+        FileDownload sent = negotiateEncoding(download, requestHeaders);
+        return downloadCountPolicy.counts(scope, sent, ifRangeMatches(sent, requestHeaders), request);
+    }
+
+    private static FileDownload negotiateEncoding(FileDownload download, HttpHeaders requestHeaders) {
+        FileDownload encoded = download.getEncodedVariant();
+        if (encoded != null && !requestHeaders.containsKey(HttpHeaders.RANGE)
+                && acceptsEncoding(requestHeaders, encoded.getContentEncoding())) {
+            return encoded;
+        }
+        return download;
+    }
+
+    private boolean ifRangeMatches(FileDownload download, HttpHeaders requestHeaders) {
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range only accepts strong validators
+            return download.getContentHash() != null && ifRange.equals(download.getETag());
+        }
+        try {
+            long ifRangeDate = requestHeaders.getFirstDate(HttpHeaders.IF_RANGE);
+            return download.getLastModified() != null
+                    && ifRangeDate / 1000 == download.getLastModified().getEpochSecond();
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Minimal {@code Accept-Encoding} check: an explicit entry for the coding wins over {@code *}, and
+     * {@code q=0} refuses it.
+     */
+    private static boolean acceptsEncoding(HttpHeaders requestHeaders, String coding) {
+        Double explicit = null;
+        Double wildcard = null;
+        for (String acceptEncoding : requestHeaders.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String element : acceptEncoding.split(",")) {
+                String[] parts = element.trim().split(";");
+                String name = parts[0].trim();
+                double quality = 1.0;
+                for (int i = 1; i < parts.length; i++) {
+                    String param = parts[i].trim();
+                    if (param.startsWith("q=")) {
+                        try {
+                            quality = Double.parseDouble(param.substring(2));
+                        } catch (NumberFormatException ex) {
+                            quality = 0;
+                        }
+                    }
+                }
+                if (name.equalsIgnoreCase(coding)) {
+                    explicit = quality;
+                } else if (name.equals("*")) {
+                    wildcard = quality;
+                }
+            }
+        }
+        Double quality = explicit != null ? explicit : wildcard;
+        return quality != null && quality > 0;
+    }
+
+    private static FileListQuery.SortField parseSortField(String sort) {
+        try {
+            return FileListQuery.SortField.valueOf(sort.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidRequestException("Unsupported sort field: " + sort);
+        }
+    }
 }
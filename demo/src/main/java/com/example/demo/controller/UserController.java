@@ -1,6 +1,7 @@
 package com.example.demo.controller;
 
 import com.example.demo.model.dto.UserDTO;
+import com.example.demo.model.dto.UserStorageSummaryDTO;
 import com.example.demo.model.entity.User;
 import com.example.demo.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,6 +28,13 @@ public class UserController {
         List<UserDTO> users = userService.getAllUsers();
         return ResponseEntity.ok(users);
     }
+
+    @GetMapping("/admin/users/summary")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<List<UserStorageSummaryDTO>> getUserStorageSummaries() {
+        return ResponseEntity.ok(userService.getUserStorageSummaries());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<UserDTO> getUser(@PathVariable Long id) {
         return ResponseEntity.ok(userService.getUserById(id));
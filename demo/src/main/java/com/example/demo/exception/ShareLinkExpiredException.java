@@ -0,0 +1,7 @@
+package com.example.demo.exception;
+
+public class ShareLinkExpiredException extends RuntimeException {
+    public ShareLinkExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a bulk operation for one file id.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkItemResult {
+
+    public enum Status { OK, NOT_FOUND, FORBIDDEN }
+
+    private Long fileId;
+    private Status status;
+    /** Set by bulk share operations for files that end up shared. */
+    private String shareUrl;
+
+    public static BulkItemResult of(Long fileId, Status status) {
+        return new BulkItemResult(fileId, status, null);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.model.dto;
+
+import com.example.demo.exception.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in a file listing: the sort key and file id of the last row returned. Serialized as an
+ * opaque URL-safe string so clients cannot depend on its layout. A NULL sort key (e.g. a file stored before
+ * sizes were recorded) is a null {@code sortValue}, written as an empty value.
+ */
+public record FileCursor(FileListQuery.SortField sort, String sortValue, long fileId) {
+
+    public static FileCursor after(FileListQuery.SortField sort, FileListItem last) {
+        Object key = sort == FileListQuery.SortField.SIZE ? last.getFileSize() : last.getUploadedAt();
+        return new FileCursor(sort, key != null ? key.toString() : null, last.getFileId());
+    }
+
+    public static FileCursor decode(String cursor, FileListQuery.SortField expectedSort) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\|", 3);
+            FileCursor fileCursor = new FileCursor(FileListQuery.SortField.valueOf(parts[0]),
+                    parts[1].isEmpty() ? null : parts[1], Long.parseLong(parts[2]));
+            if (fileCursor.sort() != expectedSort) {
+                throw new InvalidRequestException("Cursor was issued for a different sort order");
+            }
+            // Fail here rather than in the query if the value does not parse
+            fileCursor.sizeValue();
+            fileCursor.dateValue();
+            return fileCursor;
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeParseException ex) {
+            throw new InvalidRequestException("Invalid cursor", ex);
+        }
+    }
+
+    public String encode() {
+        String raw = sort.name() + "|" + (sortValue != null ? sortValue : "") + "|" + fileId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Long sizeValue() {
+        return sort == FileListQuery.SortField.SIZE && sortValue != null ? Long.valueOf(sortValue) : null;
+    }
+
+    public LocalDateTime dateValue() {
+        return sort == FileListQuery.SortField.DATE && sortValue != null ? LocalDateTime.parse(sortValue) : null;
+    }
+}
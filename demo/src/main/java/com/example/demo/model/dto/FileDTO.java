@@ -1,8 +1,12 @@
 package com.example.demo.model.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class FileDTO {
     private Long fileId;
     private String fileName;
@@ -0,0 +1,43 @@
+package com.example.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.core.io.Resource;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class FileDownload {
+    private Resource resource;
+    private String fileName;
+    private long fileSize;
+    private String contentHash;
+    private Instant lastModified;
+    /** Content-Encoding of this representation, {@code null} for the original bytes. */
+    private String contentEncoding;
+    /** The stored compressed bytes, sendable as-is to clients that accept the encoding; {@code null} if stored raw. */
+    private FileDownload encodedVariant;
+
+    public FileDownload(Resource resource, String fileName, long fileSize, String contentHash, Instant lastModified) {
+        this(resource, fileName, fileSize, contentHash, lastModified, null, null);
+    }
+
+    /**
+     * Whether the response depends on {@code Accept-Encoding}, i.e. both a decoded and an encoded form exist.
+     */
+    public boolean isEncodingNegotiated() {
+        return contentEncoding != null || encodedVariant != null;
+    }
+
+    /**
+     * Strong validator when the content hash is known, otherwise a weak one built from size and upload time.
+     * Each encoding is a different representation and gets its own tag.
+     */
+    public String getETag() {
+        if (contentHash != null) {
+            return "\"" + contentHash + (contentEncoding != null ? "-" + contentEncoding : "") + "\"";
+        }
+        return "W/\"" + fileSize + "-" + (lastModified != null ? lastModified.toEpochMilli() : 0) + "\"";
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.model.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class FileIdsRequest {
+    private List<Long> fileIds;
+}
@@ -0,0 +1,29 @@
+package com.example.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row of the paged file listing, selected column by column instead of loading {@code File} entities.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileListItem {
+    private Long fileId;
+    private String fileName;
+    private String fileType;
+    private Long fileSize;
+    private LocalDateTime uploadedAt;
+    private String shareToken;
+    private boolean shareEnabled;
+    private String shareUrl;
+
+    public FileListItem(Long fileId, String fileName, String fileType, Long fileSize,
+                        LocalDateTime uploadedAt, String shareToken, boolean shareEnabled) {
+        this(fileId, fileName, fileType, fileSize, uploadedAt, shareToken, shareEnabled, null);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FileListQuery {
+
+    public enum SortField { DATE, SIZE }
+
+    private String fileType;
+    private String namePrefix;
+    private Boolean shared;
+    @Builder.Default
+    private SortField sort = SortField.DATE;
+    @Builder.Default
+    private boolean descending = true;
+    private String cursor;
+    @Builder.Default
+    private int limit = 50;
+}
@@ -0,0 +1,18 @@
+package com.example.demo.model.dto;
+
+import lombok.Data;
+
+@Data
+public class FileMetadataDTO {
+    private Long fileId;
+    private String fileName;
+    /** Type sent by the client at upload. */
+    private String declaredType;
+    /** {@code PENDING}, {@code DONE} or {@code FAILED}; {@code null} for files stored before the pipeline existed. */
+    private String processingStatus;
+    private String detectedType;
+    private Integer width;
+    private Integer height;
+    private Integer pageCount;
+    private boolean thumbnailAvailable;
+}
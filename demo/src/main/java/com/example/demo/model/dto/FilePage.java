@@ -0,0 +1,14 @@
+package com.example.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class FilePage {
+    private List<FileListItem> items;
+    /** Opaque cursor for the next page, {@code null} on the last page. */
+    private String nextCursor;
+}
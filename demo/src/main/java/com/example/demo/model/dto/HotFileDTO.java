@@ -0,0 +1,22 @@
+package com.example.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A file with its flushed download counters, for the admin popularity listing.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotFileDTO {
+    private Long fileId;
+    private String fileName;
+    private Long userId;
+    private long downloads;
+    private long sharedDownloads;
+    private LocalDateTime lastAccessedAt;
+}
@@ -0,0 +1,27 @@
+package com.example.demo.model.dto;
+
+import com.example.demo.model.entity.File;
+
+import java.time.LocalDateTime;
+
+/**
+ * What a download needs to know about a file, detached from the persistence context so it can be cached.
+ */
+public record SharedFileMetadata(Long fileId,
+                                 String fileName,
+                                 String fileType,
+                                 Long fileSize,
+                                 String contentHash,
+                                 String contentEncoding,
+                                 Long storedSize,
+                                 String filePath,
+                                 LocalDateTime uploadedAt,
+                                 boolean shareEnabled,
+                                 String shareToken) {
+
+    public static SharedFileMetadata from(File file) {
+        return new SharedFileMetadata(file.getFileId(), file.getFileName(), file.getFileType(), file.getFileSize(),
+                file.getContentHash(), file.getContentEncoding(), file.getStoredSize(), file.getFilePath(),
+                file.getUploadedAt(), file.isShareEnabled(), file.getShareToken());
+    }
+}
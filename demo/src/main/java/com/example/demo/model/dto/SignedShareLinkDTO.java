@@ -0,0 +1,13 @@
+package com.example.demo.model.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class SignedShareLinkDTO {
+    private String shareUrl;
+    private Instant expiresAt;
+    /** {@code null} when the link has no download limit. */
+    private Integer maxDownloads;
+}
@@ -0,0 +1,17 @@
+package com.example.demo.model.dto;
+
+import lombok.Data;
+
+@Data
+public class StorageGcReport {
+    private long scannedObjects;
+    private long scannedBlobs;
+    /** Stored objects with no {@code blobs} row, deleted from the backend. */
+    private long orphanObjectsDeleted;
+    /** {@code blobs} rows whose bytes are missing, removed with the files that referenced them. */
+    private long danglingBlobsRemoved;
+    private long danglingFilesRemoved;
+    /** Set when more dangling blobs were found than a run may remove; nothing was removed on that side. */
+    private boolean danglingRemovalSkipped;
+    private long stagingFilesDeleted;
+}
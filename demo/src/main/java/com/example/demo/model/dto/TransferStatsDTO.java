@@ -0,0 +1,13 @@
+package com.example.demo.model.dto;
+
+import lombok.Data;
+
+@Data
+public class TransferStatsDTO {
+    private boolean sendfileEnabled;
+    private long sendfileTransfers;
+    private long sendfileBytes;
+    private double sendfileBytesPerSecond;
+    private int windowSeconds;
+    private long streamedFallbacks;
+}
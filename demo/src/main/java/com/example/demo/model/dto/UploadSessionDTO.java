@@ -0,0 +1,13 @@
+package com.example.demo.model.dto;
+
+import lombok.Data;
+
+@Data
+public class UploadSessionDTO {
+    private String uploadId;
+    private String fileName;
+    private String fileType;
+    private long totalSize;
+    private long receivedBytes;
+    private boolean complete;
+}
@@ -0,0 +1,20 @@
+package com.example.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A user together with how many files they own and how many bytes those files take, aggregated in SQL.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserStorageSummaryDTO {
+    private Long userId;
+    private String username;
+    private String email;
+    private String role;
+    private long fileCount;
+    private long totalBytes;
+}
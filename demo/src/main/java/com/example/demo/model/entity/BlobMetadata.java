@@ -0,0 +1,60 @@
+package com.example.demo.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * What the post-upload pipeline learned about a blob's content. One row per blob, created {@code PENDING} with
+ * the blob's first reference and removed with it.
+ */
+@Data
+@Entity
+@Table(name = "blob_metadata")
+public class BlobMetadata {
+
+    public enum Status {
+        PENDING,
+        DONE,
+        /** Gave up after {@code content.processing.max-attempts}; see {@code lastError}. */
+        FAILED
+    }
+
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status;
+
+    /** Media type sniffed from the content's magic bytes. */
+    @Column(name = "detected_type", length = 100)
+    private String detectedType;
+
+    @Column(name = "width")
+    private Integer width;
+
+    @Column(name = "height")
+    private Integer height;
+
+    @Column(name = "page_count")
+    private Integer pageCount;
+
+    /** Storage key of the default thumbnail, {@code null} if the content has none. */
+    @Column(name = "thumbnail_key", length = 255)
+    private String thumbnailKey;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
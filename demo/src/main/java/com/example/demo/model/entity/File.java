@@ -29,6 +29,16 @@ public class File {
     @Column(name = "file_path", nullable = false)
     private String filePath;
 
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    /** Copied from the blob: HTTP content-coding of the stored bytes, {@code null} when stored as uploaded. */
+    @Column(name = "content_encoding", length = 16)
+    private String contentEncoding;
+
+    @Column(name = "stored_size")
+    private Long storedSize;
+
     @Column(name = "uploaded_at")
     private LocalDateTime uploadedAt;
 
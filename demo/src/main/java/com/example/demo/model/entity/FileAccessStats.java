@@ -0,0 +1,30 @@
+package com.example.demo.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Download counters of one file. Written only by batched flushes of {@code FileAccessTracker}, never per request.
+ */
+@Data
+@Entity
+@Table(name = "file_access_stats")
+public class FileAccessStats {
+
+    @Id
+    @Column(name = "file_id")
+    private Long fileId;
+
+    /** All downloads, including the shared ones. */
+    @Column(name = "downloads", nullable = false)
+    private long downloads;
+
+    /** Downloads through public or signed share links. */
+    @Column(name = "shared_downloads", nullable = false)
+    private long sharedDownloads;
+
+    @Column(name = "last_accessed_at")
+    private LocalDateTime lastAccessedAt;
+}
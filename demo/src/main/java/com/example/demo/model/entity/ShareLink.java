@@ -0,0 +1,32 @@
+package com.example.demo.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Download count of one signed share link. The link itself lives only in its token; the row is created by the
+ * first counter flush and removed some time after the link expires.
+ */
+@Data
+@Entity
+@Table(name = "share_links")
+public class ShareLink {
+
+    @Id
+    @Column(name = "link_id", length = 36)
+    private String linkId;
+
+    @Column(name = "file_id", nullable = false)
+    private Long fileId;
+
+    @Column(name = "downloads", nullable = false)
+    private long downloads;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
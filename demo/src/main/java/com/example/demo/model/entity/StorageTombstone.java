@@ -0,0 +1,54 @@
+package com.example.demo.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stored bytes that are no longer referenced and still have to be removed. Written in the same transaction that
+ * drops the last reference, so the intent to delete commits or rolls back together with the database change.
+ */
+@Data
+@Entity
+@Table(name = "storage_tombstones")
+public class StorageTombstone {
+
+    public enum Kind {
+        /** A content-addressed blob in the storage backend; the key is its hash. */
+        BLOB,
+        /** A file from before content addressing; the key is its path in the upload directory. */
+        LOCAL_FILE
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "storage_key", nullable = false, length = 1024)
+    private String storageKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false, length = 16)
+    private Kind kind;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+}
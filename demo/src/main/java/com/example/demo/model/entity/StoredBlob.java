@@ -0,0 +1,37 @@
+package com.example.demo.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "blobs")
+public class StoredBlob {
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "blob_size", nullable = false)
+    private long blobSize;
+
+    /** HTTP content-coding of the stored bytes, {@code null} when stored as uploaded. */
+    @Column(name = "content_encoding", length = 16)
+    private String contentEncoding;
+
+    /** Bytes actually stored, differs from {@code blobSize} when encoded. */
+    @Column(name = "stored_size")
+    private Long storedSize;
+
+    @Column(name = "ref_count", nullable = false)
+    private long refCount;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
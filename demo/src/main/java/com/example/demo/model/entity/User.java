@@ -35,6 +35,14 @@ public class User implements UserDetails {
     @Column(name = "role_")
     private String role = "USER";
 
+    /** Maintained by {@code UserRepository.reserveStorage/releaseStorage} only, never written through the entity. */
+    @Column(name = "storage_used", insertable = false, updatable = false)
+    private long storageUsed;
+
+    /** Per-user override of {@code storage.quota.default}. */
+    @Column(name = "storage_quota")
+    private Long storageQuota;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -0,0 +1,26 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.entity.BlobMetadata;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BlobMetadataRepository extends JpaRepository<BlobMetadata, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO blob_metadata (content_hash, status, attempts, created_at, updated_at) " +
+            "VALUES (:hash, 'PENDING', 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (content_hash) DO NOTHING", nativeQuery = true)
+    int insertPending(@Param("hash") String hash);
+
+    /**
+     * Pending blobs not touched since {@code before}: never picked up (queue full, restart) or waiting for a retry.
+     */
+    @Query(value = "SELECT content_hash FROM blob_metadata WHERE status = 'PENDING' AND updated_at < :before " +
+            "ORDER BY updated_at LIMIT :limit", nativeQuery = true)
+    List<String> findPendingBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
@@ -0,0 +1,25 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.dto.HotFileDTO;
+import com.example.demo.model.entity.FileAccessStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface FileAccessStatsRepository extends JpaRepository<FileAccessStats, Long>, FileAccessStatsRepositoryCustom {
+
+    @Query("select new com.example.demo.model.dto.HotFileDTO(f.fileId, f.fileName, f.user.id, "
+            + "s.downloads, s.sharedDownloads, s.lastAccessedAt) "
+            + "from FileAccessStats s join File f on f.fileId = s.fileId "
+            + "order by s.downloads desc, s.fileId")
+    List<HotFileDTO> findMostDownloaded(Pageable page);
+
+    @Query("select new com.example.demo.model.dto.HotFileDTO(f.fileId, f.fileName, f.user.id, "
+            + "s.downloads, s.sharedDownloads, s.lastAccessedAt) "
+            + "from FileAccessStats s join File f on f.fileId = s.fileId "
+            + "where s.lastAccessedAt is not null "
+            + "order by s.lastAccessedAt desc, s.fileId")
+    List<HotFileDTO> findRecentlyAccessed(Pageable page);
+}
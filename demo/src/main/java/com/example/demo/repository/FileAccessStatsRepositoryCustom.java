@@ -0,0 +1,16 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface FileAccessStatsRepositoryCustom {
+
+    /**
+     * Adds each delta to its file's counters as one JDBC batch of upserts, keeping the later access time. Deltas
+     * for files that no longer exist are dropped.
+     */
+    void addAccesses(List<AccessDelta> deltas);
+
+    record AccessDelta(Long fileId, long downloads, long sharedDownloads, LocalDateTime lastAccessedAt) {
+    }
+}
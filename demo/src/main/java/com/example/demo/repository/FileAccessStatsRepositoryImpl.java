@@ -0,0 +1,38 @@
+package com.example.demo.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.Comparator;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class FileAccessStatsRepositoryImpl implements FileAccessStatsRepositoryCustom {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addAccesses(List<AccessDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        // Rows are locked in file id order, so flushes from several nodes cannot deadlock each other
+        List<AccessDelta> ordered = deltas.stream().sorted(Comparator.comparing(AccessDelta::fileId)).toList();
+        jdbcTemplate.batchUpdate("INSERT INTO file_access_stats (file_id, downloads, shared_downloads, last_accessed_at) " +
+                        "SELECT file_id, ?, ?, ? FROM files WHERE file_id = ? " +
+                        "ON CONFLICT (file_id) DO UPDATE SET " +
+                        "downloads = file_access_stats.downloads + EXCLUDED.downloads, " +
+                        "shared_downloads = file_access_stats.shared_downloads + EXCLUDED.shared_downloads, " +
+                        "last_accessed_at = GREATEST(file_access_stats.last_accessed_at, EXCLUDED.last_accessed_at)",
+                ordered, BATCH_SIZE, (ps, delta) -> {
+                    ps.setLong(1, delta.downloads());
+                    ps.setLong(2, delta.sharedDownloads());
+                    ps.setTimestamp(3, Timestamp.valueOf(delta.lastAccessedAt()));
+                    ps.setLong(4, delta.fileId());
+                });
+    }
+}
@@ -1,16 +1,34 @@
 package com.example.demo.repository;
 
+import com.example.demo.model.dto.FileDTO;
 import com.example.demo.model.entity.File;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface FileRepository extends JpaRepository<File, Long> {
+public interface FileRepository extends JpaRepository<File, Long>, FileRepositoryCustom {
+    @EntityGraph(attributePaths = "user")
     List<File> findAllByUserId(Long userId);
 
+    /**
+     * Listing as a DTO projection; {@code f.user.id} reads the foreign key column, so no join and no proxies.
+     * The share URL is filled in by the service.
+     */
+    @Query("select new com.example.demo.model.dto.FileDTO(f.fileId, f.fileName, f.fileType, f.fileSize, "
+            + "f.filePath, f.user.id, f.shareToken, f.shareEnabled, null) "
+            + "from File f where f.user.id = :userId order by f.uploadedAt desc, f.fileId desc")
+    List<FileDTO> findDtosByUserId(@Param("userId") Long userId);
+
     Optional<File> findByShareTokenAndShareEnabled(String shareToken, boolean shareEnabled);
     Optional<File> findByShareToken(String shareToken);
 
-
-}
\ No newline at end of file
+    @Modifying
+    @Query("update File f set f.shareEnabled = false, f.shareToken = null where f.fileId in :ids")
+    int disableSharing(@Param("ids") Collection<Long> ids);
+}
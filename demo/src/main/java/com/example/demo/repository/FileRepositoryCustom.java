@@ -0,0 +1,42 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.dto.FileCursor;
+import com.example.demo.model.dto.FileListItem;
+import com.example.demo.model.dto.FileListQuery;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface FileRepositoryCustom {
+
+    /**
+     * One keyset page of a user's files, newest/largest first (or reversed), as column projections.
+     *
+     * @param after position of the last row of the previous page, {@code null} for the first page
+     */
+    List<FileListItem> findPage(Long userId, FileListQuery query, FileCursor after, int maxResults);
+
+    /**
+     * Turns sharing on with the given token per file, as one JDBC batch.
+     */
+    void enableSharing(Map<Long, String> shareTokensByFileId);
+
+    /**
+     * Deletes every file row that references one of the given blobs and returns what the caller needs to
+     * release quota and evict share tokens.
+     */
+    List<RemovedFile> deleteByContentHashes(Collection<String> contentHashes);
+
+    /**
+     * Replaces a missing or generic declared type with the sniffed one on every file sharing the content and
+     * returns the changed files, whose cached share metadata is now stale.
+     */
+    List<TypedFile> fillInFileType(String contentHash, String fileType);
+
+    record RemovedFile(Long fileId, Long userId, Long fileSize, String shareToken) {
+    }
+
+    record TypedFile(Long fileId, String shareToken) {
+    }
+}
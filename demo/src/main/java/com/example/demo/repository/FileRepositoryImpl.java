@@ -0,0 +1,155 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.dto.FileCursor;
+import com.example.demo.model.dto.FileListItem;
+import com.example.demo.model.dto.FileListQuery;
+import com.example.demo.model.entity.File;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.StringUtils;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyset pagination over {@code (uploaded_at, file_id)} or {@code (file_size, file_id)}. Each page is a bounded
+ * index range scan starting at the cursor, so its cost does not grow with the page number or the total number
+ * of files; the matching indexes are declared in {@code db.sql}.
+ *
+ * <p>Both sort keys are nullable. PostgreSQL orders NULL above every value, so NULL keys come first in descending
+ * listings (as in the {@code DESC} indexes) and last in ascending ones, and the keyset predicate follows suit.
+ */
+public class FileRepositoryImpl implements FileRepositoryCustom {
+
+    private static final int BATCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public FileRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<FileListItem> findPage(Long userId, FileListQuery query, FileCursor after, int maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<FileListItem> cq = cb.createQuery(FileListItem.class);
+        Root<File> file = cq.from(File.class);
+
+        cq.select(cb.construct(FileListItem.class,
+                file.get("fileId"),
+                file.get("fileName"),
+                file.get("fileType"),
+                file.get("fileSize"),
+                file.get("uploadedAt"),
+                file.get("shareToken"),
+                file.get("shareEnabled")));
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(file.get("user").get("id"), userId));
+
+        if (StringUtils.hasText(query.getFileType())) {
+            predicates.add(cb.equal(file.get("fileType"), query.getFileType()));
+        }
+        if (StringUtils.hasText(query.getNamePrefix())) {
+            predicates.add(cb.like(file.get("fileName"), escapeLike(query.getNamePrefix()) + "%", '\\'));
+        }
+        if (query.getShared() != null) {
+            predicates.add(cb.equal(file.get("shareEnabled"), query.getShared()));
+        }
+
+        boolean bySize = query.getSort() == FileListQuery.SortField.SIZE;
+        Path<Long> fileId = file.get("fileId");
+
+        if (after != null) {
+            predicates.add(bySize
+                    ? keysetPredicate(cb, file.get("fileSize"), after.sizeValue(), fileId, after.fileId(), query.isDescending())
+                    : keysetPredicate(cb, file.get("uploadedAt"), after.dateValue(), fileId, after.fileId(), query.isDescending()));
+        }
+
+        Path<? extends Comparable<?>> sortKey = bySize ? file.get("fileSize") : file.get("uploadedAt");
+        cq.where(predicates.toArray(new Predicate[0]));
+        cq.orderBy(query.isDescending()
+                ? List.of(cb.desc(sortKey), cb.desc(fileId))
+                : List.of(cb.asc(sortKey), cb.asc(fileId)));
+
+        return entityManager.createQuery(cq)
+                .setMaxResults(maxResults)
+                .getResultList();
+    }
+
+    @Override
+    public void enableSharing(Map<Long, String> shareTokensByFileId) {
+        List<Map.Entry<Long, String>> entries = new ArrayList<>(shareTokensByFileId.entrySet());
+        jdbcTemplate.batchUpdate("UPDATE files SET share_enabled = TRUE, share_token = ? WHERE file_id = ?",
+                entries, BATCH_SIZE, (ps, entry) -> {
+                    ps.setString(1, entry.getValue());
+                    ps.setLong(2, entry.getKey());
+                });
+    }
+
+    @Override
+    public List<RemovedFile> deleteByContentHashes(Collection<String> contentHashes) {
+        if (contentHashes.isEmpty()) {
+            return List.of();
+        }
+        String[] hashes = contentHashes.toArray(new String[0]);
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "DELETE FROM files WHERE content_hash = ANY (?) RETURNING file_id, user_id, file_size, share_token");
+            ps.setArray(1, connection.createArrayOf("varchar", hashes));
+            return ps;
+        }, (rs, rowNum) -> new RemovedFile(rs.getLong("file_id"), rs.getLong("user_id"),
+                (Long) rs.getObject("file_size"), rs.getString("share_token")));
+    }
+
+    @Override
+    public List<TypedFile> fillInFileType(String contentHash, String fileType) {
+        return jdbcTemplate.query("UPDATE files SET file_type = ? WHERE content_hash = ? " +
+                        "AND (file_type IS NULL OR file_type = '' OR file_type = 'application/octet-stream') " +
+                        "RETURNING file_id, share_token",
+                (rs, rowNum) -> new TypedFile(rs.getLong("file_id"), rs.getString("share_token")),
+                fileType, contentHash);
+    }
+
+    /**
+     * {@code (key, id) < (afterKey, afterId)} written out for JPQL. The leading {@code key <= afterKey} bound is
+     * implied by the disjunction but lets the planner start the index scan at the cursor. A NULL key sorts above
+     * every value; comparisons with it are never true, so the NULL rows are added or matched explicitly.
+     */
+    private <T extends Comparable<? super T>> Predicate keysetPredicate(CriteriaBuilder cb, Path<T> key, T afterKey,
+                                                                        Path<Long> id, long afterId, boolean descending) {
+        if (afterKey == null) {
+            Predicate nullKeyAfter = cb.and(cb.isNull(key),
+                    descending ? cb.lessThan(id, afterId) : cb.greaterThan(id, afterId));
+            return descending ? cb.or(nullKeyAfter, cb.isNotNull(key)) : nullKeyAfter;
+        }
+        if (descending) {
+            return cb.and(
+                    cb.lessThanOrEqualTo(key, afterKey),
+                    cb.or(cb.lessThan(key, afterKey),
+                            cb.and(cb.equal(key, afterKey), cb.lessThan(id, afterId))));
+        }
+        return cb.or(
+                cb.and(
+                        cb.greaterThanOrEqualTo(key, afterKey),
+                        cb.or(cb.greaterThan(key, afterKey),
+                                cb.and(cb.equal(key, afterKey), cb.greaterThan(id, afterId)))),
+                cb.isNull(key));
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
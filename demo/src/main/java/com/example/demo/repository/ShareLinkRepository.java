@@ -0,0 +1,16 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.entity.ShareLink;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface ShareLinkRepository extends JpaRepository<ShareLink, String>, ShareLinkRepositoryCustom {
+
+    @Modifying
+    @Query(value = "DELETE FROM share_links WHERE expires_at < :before", nativeQuery = true)
+    int deleteExpiredBefore(@Param("before") LocalDateTime before);
+}
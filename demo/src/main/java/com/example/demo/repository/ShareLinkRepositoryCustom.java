@@ -0,0 +1,16 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ShareLinkRepositoryCustom {
+
+    /**
+     * Adds each delta to its link's download count as one JDBC batch of upserts. Deltas for files that no longer
+     * exist are dropped.
+     */
+    void addDownloads(List<DownloadDelta> deltas);
+
+    record DownloadDelta(String linkId, Long fileId, LocalDateTime expiresAt, long downloads) {
+    }
+}
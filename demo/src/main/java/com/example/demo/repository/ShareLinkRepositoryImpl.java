@@ -0,0 +1,34 @@
+package com.example.demo.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ShareLinkRepositoryImpl implements ShareLinkRepositoryCustom {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addDownloads(List<DownloadDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        // INSERT ... SELECT so a file deleted since the download does not fail the whole batch on the foreign key
+        jdbcTemplate.batchUpdate("INSERT INTO share_links (link_id, file_id, downloads, expires_at, updated_at) " +
+                        "SELECT ?, file_id, ?, ?, CURRENT_TIMESTAMP FROM files WHERE file_id = ? " +
+                        "ON CONFLICT (link_id) DO UPDATE SET downloads = share_links.downloads + EXCLUDED.downloads, " +
+                        "updated_at = CURRENT_TIMESTAMP",
+                deltas, BATCH_SIZE, (ps, delta) -> {
+                    ps.setString(1, delta.linkId());
+                    ps.setLong(2, delta.downloads());
+                    ps.setTimestamp(3, Timestamp.valueOf(delta.expiresAt()));
+                    ps.setLong(4, delta.fileId());
+                });
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.entity.StorageTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface StorageTombstoneRepository extends JpaRepository<StorageTombstone, Long> {
+
+    /**
+     * Claims up to {@code limit} due tombstones for the current transaction. {@code SKIP LOCKED} lets several
+     * workers (or nodes) drain the table concurrently without processing the same row twice.
+     */
+    @Query(value = "SELECT * FROM storage_tombstones WHERE next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<StorageTombstone> claimDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -0,0 +1,50 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.entity.StoredBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String>, StoredBlobRepositoryCustom {
+
+    /**
+     * Takes one reference on the blob, creating its row if this is the first copy.
+     * The row lock taken by the upsert serializes concurrent uploads of the same content.
+     */
+    @Transactional
+    @Query(value = "INSERT INTO blobs (content_hash, blob_size, ref_count, created_at) " +
+            "VALUES (:hash, :size, 1, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (content_hash) DO UPDATE SET ref_count = blobs.ref_count + 1 " +
+            "RETURNING ref_count", nativeQuery = true)
+    long acquire(@Param("hash") String hash, @Param("size") long size);
+
+    /**
+     * Serializes everything that creates or destroys the bytes of one blob until the current transaction ends:
+     * the first upload of the content and the physical deletion of its bytes.
+     */
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(hashtextextended(:hash, 0))) AS l", nativeQuery = true)
+    int lockContent(@Param("hash") String hash);
+
+    /**
+     * One keyset page of blobs in byte order of the hash, which is the order {@code StorageBackend.list()} uses.
+     */
+    @Query(value = "SELECT * FROM blobs WHERE content_hash COLLATE \"C\" > :after " +
+            "ORDER BY content_hash COLLATE \"C\" LIMIT :limit", nativeQuery = true)
+    List<StoredBlob> findPageAfter(@Param("after") String after, @Param("limit") int limit);
+
+    @Modifying
+    @Query("update StoredBlob b set b.contentEncoding = :encoding, b.storedSize = :storedSize where b.contentHash = :hash")
+    int updateEncoding(@Param("hash") String hash, @Param("encoding") String encoding, @Param("storedSize") long storedSize);
+
+    @Modifying
+    @Query("update StoredBlob b set b.refCount = b.refCount - 1 where b.contentHash = :hash")
+    int release(@Param("hash") String hash);
+
+    @Modifying
+    @Query("delete from StoredBlob b where b.contentHash = :hash and b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("hash") String hash);
+}
@@ -0,0 +1,14 @@
+package com.example.demo.repository;
+
+import java.util.List;
+import java.util.Map;
+
+public interface StoredBlobRepositoryCustom {
+
+    /**
+     * Drops {@code count} references from each blob as one JDBC batch, then deletes the rows that reached zero.
+     *
+     * @return hashes of the blobs that are no longer referenced and whose bytes can be removed
+     */
+    List<String> releaseAll(Map<String, Long> referencesByHash);
+}
@@ -0,0 +1,39 @@
+package com.example.demo.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class StoredBlobRepositoryImpl implements StoredBlobRepositoryCustom {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<String> releaseAll(Map<String, Long> referencesByHash) {
+        if (referencesByHash.isEmpty()) {
+            return List.of();
+        }
+
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(referencesByHash.entrySet());
+        jdbcTemplate.batchUpdate("UPDATE blobs SET ref_count = ref_count - ? WHERE content_hash = ?",
+                entries, BATCH_SIZE, (ps, entry) -> {
+                    ps.setLong(1, entry.getValue());
+                    ps.setString(2, entry.getKey());
+                });
+
+        String[] hashes = referencesByHash.keySet().toArray(new String[0]);
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "DELETE FROM blobs WHERE content_hash = ANY (?) AND ref_count <= 0 RETURNING content_hash");
+            ps.setArray(1, connection.createArrayOf("varchar", hashes));
+            return ps;
+        }, (rs, rowNum) -> rs.getString(1));
+    }
+}
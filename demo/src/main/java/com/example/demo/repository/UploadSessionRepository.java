@@ -0,0 +1,48 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.entity.UploadSession;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    boolean existsByStorageName(String storageName);
+
+    /**
+     * Locks the session for completion or abort, so the expiry sweep skips it and neither runs twice.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from UploadSession s where s.uploadId = :uploadId")
+    Optional<UploadSession> findForUpdate(@Param("uploadId") String uploadId);
+
+    /**
+     * Advances the session offset only if nobody else has moved it since {@code expectedOffset} was read.
+     * Returns the number of updated rows, so 0 means the caller lost the race.
+     */
+    @Transactional
+    @Modifying
+    @Query("update UploadSession s set s.receivedBytes = :newOffset, s.updatedAt = :now, s.expiresAt = :expiresAt " +
+            "where s.uploadId = :uploadId and s.receivedBytes = :expectedOffset")
+    int advanceOffset(@Param("uploadId") String uploadId,
+                      @Param("expectedOffset") long expectedOffset,
+                      @Param("newOffset") long newOffset,
+                      @Param("now") LocalDateTime now,
+                      @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Claims up to {@code limit} expired sessions for the current transaction, skipping any that are being
+     * completed or aborted.
+     */
+    @Query(value = "SELECT * FROM upload_sessions WHERE expires_at <= :now " +
+            "ORDER BY expires_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<UploadSession> claimExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -1,7 +1,13 @@
 package com.example.demo.repository;
 
+import com.example.demo.model.dto.UserStorageSummaryDTO;
 import com.example.demo.model.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -9,4 +15,49 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+
+    @Query("select u.role from User u where u.id = :id")
+    Optional<String> findRoleById(@Param("id") Long id);
+
+    /**
+     * Every user with their file count and stored bytes in a single grouped query.
+     */
+    @Query("select new com.example.demo.model.dto.UserStorageSummaryDTO(u.id, u.username, u.email, u.role, "
+            + "count(f.fileId), coalesce(sum(f.fileSize), 0L)) "
+            + "from User u left join File f on f.user = u "
+            + "group by u.id, u.username, u.email, u.role "
+            + "order by u.username")
+    List<UserStorageSummaryDTO> findStorageSummaries();
+
+    @Query("select u.storageUsed, coalesce(u.storageQuota, :defaultQuota) from User u where u.id = :id")
+    List<Object[]> findStorageUsage(@Param("id") Long id, @Param("defaultQuota") long defaultQuota);
+
+    /**
+     * Adds {@code bytes} to the user's usage only if the result stays within their quota. Check and update are
+     * one statement, so concurrent uploads cannot both pass the check. Returns 0 when the quota would be exceeded.
+     */
+    @Modifying
+    @Query(value = "UPDATE users SET storage_used = storage_used + :bytes "
+            + "WHERE user_id = :id AND storage_used + :bytes <= COALESCE(storage_quota, :defaultQuota)",
+            nativeQuery = true)
+    int reserveStorage(@Param("id") Long id, @Param("bytes") long bytes, @Param("defaultQuota") long defaultQuota);
+
+    @Modifying
+    @Query(value = "UPDATE users SET storage_used = GREATEST(storage_used - :bytes, 0) WHERE user_id = :id",
+            nativeQuery = true)
+    int releaseStorage(@Param("id") Long id, @Param("bytes") long bytes);
+
+    /**
+     * Recomputes every drifted counter from the files and in-flight upload sessions. Returns the number of users
+     * that were corrected.
+     */
+    @Modifying
+    @Query(value = "UPDATE users u SET storage_used = t.actual "
+            + "FROM (SELECT u2.user_id, "
+            + "        COALESCE((SELECT SUM(f.file_size) FROM files f WHERE f.user_id = u2.user_id), 0) "
+            + "      + COALESCE((SELECT SUM(s.total_size) FROM upload_sessions s WHERE s.user_id = u2.user_id), 0) AS actual "
+            + "      FROM users u2) t "
+            + "WHERE u.user_id = t.user_id AND u.storage_used <> t.actual",
+            nativeQuery = true)
+    int reconcileStorageUsage();
 }
@@ -1,30 +1,43 @@
 package com.example.demo.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Authenticates requests from the bearer token alone: the token is parsed and verified once and the principal
+ * is built from its {@code id} / {@code role} claims. With {@code jwt.user-check.enabled} the user's current
+ * role is additionally checked against a short-TTL cache, so deleted or re-roled users lose access quickly.
+ * Validation time, including that check, is recorded as {@code auth.jwt.validation} by outcome.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final UserRevocationCheck userRevocationCheck;
+    private final boolean userCheckEnabled;
+    private final Map<String, Timer> validationTimers;
 
     private final List<String> publicPaths = Arrays.asList(
         "/api/auth/register", "/auth/register",
@@ -32,6 +45,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         "/api/test/public", "/test/public"
     );
 
+    public JwtAuthenticationFilter(JwtService jwtService,
+                                   UserRevocationCheck userRevocationCheck,
+                                   @Value("${jwt.user-check.enabled:true}") boolean userCheckEnabled,
+                                   MeterRegistry meterRegistry) {
+        this.jwtService = jwtService;
+        this.userRevocationCheck = userRevocationCheck;
+        this.userCheckEnabled = userCheckEnabled;
+        // Registered once per outcome, so timing a request is not a registry lookup
+        Map<String, Timer> timers = new HashMap<>();
+        for (String outcome : List.of("valid", "invalid", "expired", "revoked", "error")) {
+            timers.put(outcome, Timer.builder("auth.jwt.validation")
+                    .description("Bearer token parsing, signature check and revocation check")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+        this.validationTimers = Map.copyOf(timers);
+    }
+
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         String path = request.getServletPath();
@@ -46,33 +77,45 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             FilterChain filterChain
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String username;
 
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")
+                || SecurityContextHolder.getContext().getAuthentication() != null) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        jwt = authHeader.substring(7);
+        final String jwt = authHeader.substring(7);
+        long start = System.nanoTime();
+        String outcome = "error";
         try {
-            username = jwtService.extractUsername(jwt);
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-                if (jwtService.isTokenValid(jwt, userDetails)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                    );
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
+            Claims claims = jwtService.parseClaims(jwt);
+            AuthenticatedUser principal = jwtService.toPrincipal(claims);
+            if (principal == null) {
+                outcome = "invalid";
+            } else if (userCheckEnabled && !userRevocationCheck.isStillValid(principal)) {
+                outcome = "revoked";
+            } else {
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                    principal,
+                    null,
+                    principal.getAuthorities()
+                );
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+                outcome = "valid";
             }
+        } catch (ExpiredJwtException e) {
+            outcome = "expired";
+            log.debug("Rejected expired JWT token: {}", e.getMessage());
+        } catch (JwtException | IllegalArgumentException e) {
+            outcome = "invalid";
+            log.debug("Rejected JWT token: {}", e.getMessage());
         } catch (Exception e) {
             log.error("Error processing JWT token", e);
+        } finally {
+            validationTimers.get(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+}
@@ -1,30 +1,48 @@
 package com.example.demo.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import com.example.demo.model.entity.User;
 
 import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
-import java.util.Map;
-import java.util.function.Function;
 
 @Service
 public class JwtService {
+    /** Claim that marks tokens which are not bearer tokens; those are never accepted for authentication. */
+    public static final String TOKEN_TYPE_CLAIM = "typ";
+    public static final String SHARE_TOKEN_TYPE = "share";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
+    // Both are immutable and thread-safe, so the key is decoded and the parser built once
+    private Key signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return parseClaims(token).getSubject();
     }
 
     public String generateToken(User user) {
@@ -34,38 +52,66 @@ public class JwtService {
                 .claim("role", user.getRole())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * Signs a share link: the link id, the file and the version of its sharing it was issued for, and an optional
+     * download limit, valid until {@code expiresAt}.
+     */
+    public String generateShareToken(String linkId, Long fileId, String shareVersion, Instant expiresAt,
+                                     Integer maxDownloads) {
+        var builder = Jwts.builder()
+                .setId(linkId)
+                .claim(TOKEN_TYPE_CLAIM, SHARE_TOKEN_TYPE)
+                .claim("fid", fileId)
+                .claim("sv", shareVersion)
+                .setExpiration(Date.from(expiresAt));
+        if (maxDownloads != null) {
+            builder.claim("max", maxDownloads);
+        }
+        return builder.signWith(signingKey, SignatureAlgorithm.HS256).compact();
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    /**
+     * Verifies a share token without any I/O.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with, expired or not a share token
+     */
+    public Claims parseShareClaims(String token) {
+        Claims claims = parseClaims(token);
+        if (!SHARE_TOKEN_TYPE.equals(claims.get(TOKEN_TYPE_CLAIM, String.class))) {
+            throw new UnsupportedJwtException("Not a share token");
+        }
+        return claims;
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    public boolean isTokenValid(String token, UserDetails userDetails) {
+        return parseClaims(token).getSubject().equals(userDetails.getUsername());
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Verifies the signature and expiry in a single parse.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * @return the principal carried by the token, or {@code null} if it lacks the claims needed to build one
+     */
+    public AuthenticatedUser toPrincipal(Claims claims) {
+        if (claims.get(TOKEN_TYPE_CLAIM) != null) {
+            return null;
+        }
+        Long id = claims.get("id", Long.class);
+        String role = claims.get("role", String.class);
+        if (id == null || role == null || claims.getSubject() == null) {
+            return null;
+        }
+        return new AuthenticatedUser(id, claims.getSubject(), role);
     }
-}
\ No newline at end of file
+}
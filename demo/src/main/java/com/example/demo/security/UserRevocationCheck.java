@@ -0,0 +1,39 @@
+package com.example.demo.security;
+
+import com.example.demo.config.CacheConfig;
+import com.example.demo.repository.UserRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Short-lived view of each user's current role, used to reject tokens of deleted or re-roled users without
+ * querying {@code users} on every request. Revocation takes effect within {@code cache.auth-users.ttl}.
+ *
+ * <p>Reads the {@value CacheConfig#AUTH_USERS} cache directly: a {@code @Cacheable} method called from
+ * {@link #isStillValid} would be a self-invocation and bypass the caching proxy.
+ */
+@Component
+public class UserRevocationCheck {
+
+    private final UserRepository userRepository;
+    private final Cache roles;
+
+    public UserRevocationCheck(UserRepository userRepository, CacheManager cacheManager) {
+        this.userRepository = userRepository;
+        this.roles = cacheManager.getCache(CacheConfig.AUTH_USERS);
+    }
+
+    public Optional<String> currentRole(Long userId) {
+        // Deleted users are cached as null, so their tokens do not reach the database either
+        return Optional.ofNullable(roles.get(userId, () -> userRepository.findRoleById(userId).orElse(null)));
+    }
+
+    public boolean isStillValid(AuthenticatedUser principal) {
+        return currentRole(principal.getId())
+                .map(role -> role.equals(principal.getRole()))
+                .orElse(false);
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.FileStorageException;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.exception.UploadOffsetMismatchException;
+import com.example.demo.exception.UserNotFoundException;
+import com.example.demo.model.dto.FileDTO;
+import com.example.demo.model.dto.UploadSessionDTO;
+import com.example.demo.model.entity.UploadSession;
+import com.example.demo.model.entity.User;
+import com.example.demo.repository.UploadSessionRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.storage.BlobStore;
+import com.example.demo.storage.BlobStore.StagedBlob;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resumable uploads: the client opens a session, sends the file as sequential chunks and completes it.
+ * Every chunk is written with a positioned {@link FileChannel} write straight into the staged file that
+ * becomes the blob on completion, so the bytes hit the disk exactly once.
+ *
+ * <p>The SHA-256 is computed while the chunks stream in. Digest state lives only in this node's memory;
+ * when it is missing (restart, another node took a chunk) the staged file is hashed on completion instead.
+ *
+ * <p>A session that receives no chunk for {@code file.upload-session.ttl} expires: a periodic sweep deletes it,
+ * releases its quota reservation and removes the staged file.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChunkedUploadService {
+
+    private static final int EXPIRY_BATCH_SIZE = 100;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final UserRepository userRepository;
+    private final FileService fileService;
+    private final BlobStore blobStore;
+    private final StorageQuotaService storageQuotaService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${file.upload-session.ttl:PT24H}")
+    private Duration sessionTtl;
+
+    private final Map<String, RunningDigest> digests = new ConcurrentHashMap<>();
+
+    @Transactional
+    public UploadSessionDTO initUpload(Long userId, String fileName, String fileType, long totalSize) {
+        if (totalSize < 0) {
+            throw new FileStorageException("File size must not be negative");
+        }
+        fileService.validateFileSize(totalSize);
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException("User not found"));
+
+        String normalizedName = fileService.normalizeFileName(fileName);
+        // The whole declared size is held from now on, so a session can never outgrow the quota mid-transfer
+        storageQuotaService.reserve(userId, totalSize);
+        Path staged = blobStore.newStagingFile();
+
+        UploadSession session = new UploadSession();
+        session.setUploadId(UUID.randomUUID().toString());
+        session.setUser(user);
+        session.setFileName(normalizedName);
+        session.setFileType(fileType);
+        session.setTotalSize(totalSize);
+        session.setReceivedBytes(0);
+        session.setStorageName(staged.getFileName().toString());
+        session.setExpiresAt(LocalDateTime.now().plus(sessionTtl));
+        session = uploadSessionRepository.save(session);
+
+        digests.put(session.getUploadId(), new RunningDigest(BlobStore.newDigest(), 0));
+        return convertToDTO(session);
+    }
+
+    /**
+     * Appends one chunk at {@code offset}. Not transactional on purpose: the body may take minutes to
+     * arrive and must not pin a database connection. The offset is committed with a compare-and-set so
+     * a retried or duplicated chunk can never move the session backwards.
+     */
+    public UploadSessionDTO writeChunk(String uploadId, Long userId, long offset, InputStream body) {
+        UploadSession session = findSession(uploadId, userId);
+
+        if (offset != session.getReceivedBytes()) {
+            throw new UploadOffsetMismatchException(
+                    "Upload " + uploadId + " expects offset " + session.getReceivedBytes(),
+                    session.getReceivedBytes());
+        }
+
+        long newOffset = writeAt(session, offset, body);
+
+        if (advanceOffset(uploadId, offset, newOffset) == 0) {
+            digests.remove(uploadId);
+            UploadSession current = findSession(uploadId, userId);
+            throw new UploadOffsetMismatchException(
+                    "Upload " + uploadId + " was modified concurrently", current.getReceivedBytes());
+        }
+
+        session.setReceivedBytes(newOffset);
+        return convertToDTO(session);
+    }
+
+    @Transactional(readOnly = true)
+    public UploadSessionDTO getUploadStatus(String uploadId, Long userId) {
+        return convertToDTO(findSession(uploadId, userId));
+    }
+
+    @Transactional
+    public FileDTO completeUpload(String uploadId, Long userId) {
+        UploadSession session = lockSession(uploadId, userId);
+
+        if (session.getReceivedBytes() != session.getTotalSize()) {
+            throw new UploadOffsetMismatchException(
+                    "Upload " + uploadId + " is incomplete: " + session.getReceivedBytes()
+                            + " of " + session.getTotalSize() + " bytes received",
+                    session.getReceivedBytes());
+        }
+
+        Path staged = blobStore.stagingPath(session.getStorageName());
+        String contentHash;
+        try (FileChannel channel = FileChannel.open(staged, StandardOpenOption.WRITE)) {
+            channel.force(true);
+
+            RunningDigest running = digests.remove(uploadId);
+            contentHash = running != null && running.position() == session.getTotalSize()
+                    ? BlobStore.toHex(running.digest())
+                    : blobStore.hash(staged);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not finalize upload " + uploadId, ex);
+        }
+
+        // Registering consumes the staged file; if anything after that rolls back, the session comes back
+        // together with its bytes and can be completed again
+        blobStore.restoreOnRollback(staged);
+        FileDTO file = fileService.registerStoredFile(session.getUser(), session.getFileName(),
+                session.getFileType(), new StagedBlob(staged, contentHash, session.getTotalSize()));
+        uploadSessionRepository.delete(session);
+        return file;
+    }
+
+    @Transactional
+    public void abortUpload(String uploadId, Long userId) {
+        UploadSession session = lockSession(uploadId, userId);
+        uploadSessionRepository.delete(session);
+        storageQuotaService.release(userId, session.getTotalSize());
+        digests.remove(uploadId);
+        blobStore.discard(blobStore.stagingPath(session.getStorageName()));
+    }
+
+    /**
+     * Drops expired sessions in batches. The staged files are removed only once the deletions have committed.
+     */
+    @Scheduled(fixedDelayString = "${file.upload-session.sweep-interval:PT10M}")
+    public void expireSessions() {
+        List<UploadSession> expired;
+        do {
+            expired = transactionTemplate.execute(status -> {
+                List<UploadSession> due = uploadSessionRepository.claimExpired(LocalDateTime.now(), EXPIRY_BATCH_SIZE);
+                for (UploadSession session : due) {
+                    storageQuotaService.release(session.getUser().getId(), session.getTotalSize());
+                }
+                uploadSessionRepository.deleteAllInBatch(due);
+                return due;
+            });
+            for (UploadSession session : expired) {
+                digests.remove(session.getUploadId());
+                blobStore.discard(blobStore.stagingPath(session.getStorageName()));
+            }
+            if (!expired.isEmpty()) {
+                log.info("Expired {} idle upload sessions", expired.size());
+            }
+        } while (expired.size() == EXPIRY_BATCH_SIZE);
+    }
+
+    private long writeAt(UploadSession session, long offset, InputStream body) {
+        Path target = blobStore.stagingPath(session.getStorageName());
+        long limit = session.getTotalSize();
+        long position = offset;
+
+        // Only feed the digest if it has seen exactly the bytes before this chunk; otherwise drop it
+        RunningDigest running = digests.remove(session.getUploadId());
+        MessageDigest digest = running != null && running.position() == offset ? running.digest() : null;
+        InputStream input = digest != null ? new DigestInputStream(body, digest) : body;
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE);
+             ReadableByteChannel source = Channels.newChannel(input)) {
+            long transferred;
+            while (position < limit && (transferred = channel.transferFrom(source, position, limit - position)) > 0) {
+                position += transferred;
+            }
+
+            if (position == limit && source.read(ByteBuffer.allocate(1)) > 0) {
+                throw new FileStorageException("Chunk exceeds declared file size of " + limit + " bytes");
+            }
+
+            if (digest != null) {
+                digests.put(session.getUploadId(), new RunningDigest(digest, position));
+            }
+        } catch (IOException ex) {
+            // Keep whatever reached the disk before the connection dropped so the client can resume from there
+            if (position > offset) {
+                advanceOffset(session.getUploadId(), offset, position);
+            }
+            throw new FileStorageException("Could not write chunk for upload " + session.getUploadId(), ex);
+        }
+
+        return position;
+    }
+
+    /**
+     * Every chunk that lands keeps the session alive for another {@code file.upload-session.ttl}.
+     */
+    private int advanceOffset(String uploadId, long expectedOffset, long newOffset) {
+        LocalDateTime now = LocalDateTime.now();
+        return uploadSessionRepository.advanceOffset(uploadId, expectedOffset, newOffset, now, now.plus(sessionTtl));
+    }
+
+    private UploadSession findSession(String uploadId, Long userId) {
+        return checkAccess(uploadSessionRepository.findById(uploadId), uploadId, userId);
+    }
+
+    private UploadSession lockSession(String uploadId, Long userId) {
+        return checkAccess(uploadSessionRepository.findForUpdate(uploadId), uploadId, userId);
+    }
+
+    private UploadSession checkAccess(Optional<UploadSession> found, String uploadId, Long userId) {
+        // An expired session waiting for the sweep is already gone as far as the client is concerned
+        UploadSession session = found
+                .filter(candidate -> candidate.getExpiresAt().isAfter(LocalDateTime.now()))
+                .orElseThrow(() -> new ResourceNotFoundException("Upload not found: " + uploadId));
+
+        if (!session.getUser().getId().equals(userId)) {
+            throw new AccessDeniedException("You don't have permission to access this upload");
+        }
+        return session;
+    }
+
+    private UploadSessionDTO convertToDTO(UploadSession session) {
+        UploadSessionDTO dto = new UploadSessionDTO();
+        dto.setUploadId(session.getUploadId());
+        dto.setFileName(session.getFileName());
+        dto.setFileType(session.getFileType());
+        dto.setTotalSize(session.getTotalSize());
+        dto.setReceivedBytes(session.getReceivedBytes());
+        dto.setComplete(session.getReceivedBytes() == session.getTotalSize());
+        return dto;
+    }
+
+    private record RunningDigest(MessageDigest digest, long position) {
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.demo.service;
+
+import com.example.demo.model.entity.BlobMetadata;
+import com.example.demo.model.entity.StoredBlob;
+import com.example.demo.repository.BlobMetadataRepository;
+import com.example.demo.repository.FileRepository;
+import com.example.demo.repository.FileRepositoryCustom.TypedFile;
+import com.example.demo.repository.StoredBlobRepository;
+import com.example.demo.service.PreviewService.PreviewRef;
+import com.example.demo.service.ThumbnailRenderer.Rendition;
+import com.example.demo.storage.ContentCodec;
+import com.example.demo.storage.DerivedObjects;
+import com.example.demo.storage.StorageBackend;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Inspects new content after the upload has committed: sniffs the real media type from the magic bytes, reads
+ * image dimensions or the PDF page count, and stores the default-size JPEG thumbnail next to the blob
+ * ({@link DerivedObjects}); the other sizes are rendered on the same pool when first requested. Results go to
+ * {@code blob_metadata}; since content is deduplicated this runs once per distinct content, not per upload. The
+ * content hash needs no stage of its own, it is computed while staging.
+ *
+ * <p>The upload only writes a {@code PENDING} row in its own transaction and hands the hash to a fixed pool of
+ * platform threads, one per core by default, since decoding and scaling are CPU-bound. The hand-off queue is
+ * bounded and never blocks the upload: when it is full the row just stays {@code PENDING} and the periodic sweep
+ * submits it once there is room, which also covers restarts and retries after failures.
+ */
+@Slf4j
+@Service
+public class ContentProcessingPipeline {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final int READ_BUFFER = 64 * 1024;
+
+    private final BlobMetadataRepository metadataRepository;
+    private final StoredBlobRepository storedBlobRepository;
+    private final FileRepository fileRepository;
+    private final ShareTokenResolver shareTokenResolver;
+    private final StorageBackend storageBackend;
+    private final PreviewService previewService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final int sweepBatchSize;
+
+    private final ThreadPoolExecutor executor;
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private final MeterRegistry meterRegistry;
+    private final Counter deferred;
+
+    public ContentProcessingPipeline(BlobMetadataRepository metadataRepository,
+                                     StoredBlobRepository storedBlobRepository,
+                                     FileRepository fileRepository,
+                                     ShareTokenResolver shareTokenResolver,
+                                     StorageBackend storageBackend,
+                                     PreviewService previewService,
+                                     TransactionTemplate transactionTemplate,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${content.processing.enabled:true}") boolean enabled,
+                                     @Value("${content.processing.workers:0}") int workers,
+                                     @Value("${content.processing.queue-capacity:1000}") int queueCapacity,
+                                     @Value("${content.processing.max-attempts:3}") int maxAttempts,
+                                     @Value("${content.processing.retry-delay:PT5M}") Duration retryDelay,
+                                     @Value("${content.processing.sweep-batch-size:100}") int sweepBatchSize) {
+        this.metadataRepository = metadataRepository;
+        this.storedBlobRepository = storedBlobRepository;
+        this.fileRepository = fileRepository;
+        this.shareTokenResolver = shareTokenResolver;
+        this.storageBackend = storageBackend;
+        this.previewService = previewService;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+        this.sweepBatchSize = sweepBatchSize;
+        this.meterRegistry = meterRegistry;
+
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "content-processing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.deferred = Counter.builder("content.processing.deferred")
+                .description("Blobs left to the sweep because the processing queue was full")
+                .register(meterRegistry);
+        Gauge.builder("content.processing.queued", executor, pool -> pool.getQueue().size())
+                .description("Blobs waiting for a processing worker")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Marks new content for processing in the current transaction and queues it once that commits.
+     */
+    public void submitAfterCommit(String contentHash) {
+        if (!enabled) {
+            return;
+        }
+        metadataRepository.insertPending(contentHash);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(contentHash);
+                }
+            });
+        } else {
+            submit(contentHash);
+        }
+    }
+
+    /**
+     * Queues the rendering of a missing preview bucket. Does nothing if it is already queued or the queue is
+     * full; the next request for the preview asks again.
+     */
+    public void submitPreview(PreviewRef ref) {
+        String key = ref.storageKey();
+        if (!queued.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    previewService.renderMissing(ref);
+                } catch (IOException | RuntimeException ex) {
+                    log.warn("Could not render preview {}", key, ex);
+                } finally {
+                    queued.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            queued.remove(key);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${content.processing.sweep-interval:PT1M}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime before = LocalDateTime.now().minus(retryDelay);
+        for (String contentHash : metadataRepository.findPendingBefore(before, sweepBatchSize)) {
+            if (!submit(contentHash)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return {@code false} if the queue is full; the row stays {@code PENDING} for the next sweep
+     */
+    private boolean submit(String contentHash) {
+        if (!queued.add(contentHash)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    process(contentHash);
+                } finally {
+                    queued.remove(contentHash);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException ex) {
+            queued.remove(contentHash);
+            deferred.increment();
+            return false;
+        }
+    }
+
+    private void process(String contentHash) {
+        long start = System.nanoTime();
+        String outcome = "done";
+        try {
+            Optional<BlobMetadata> metadata = metadataRepository.findById(contentHash);
+            Optional<StoredBlob> blob = storedBlobRepository.findById(contentHash);
+            if (metadata.isEmpty() || metadata.get().getStatus() != BlobMetadata.Status.PENDING || blob.isEmpty()) {
+                outcome = "skipped";
+                return;
+            }
+            analyse(blob.get());
+        } catch (IOException | RuntimeException ex) {
+            if (executor.isShutdown()) {
+                // Interrupted by shutdown; the row is still PENDING and will be picked up again
+                outcome = "aborted";
+                return;
+            }
+            outcome = recordFailure(contentHash, ex) ? "failed" : "retry";
+        } finally {
+            Timer.builder("content.processing.duration")
+                    .description("Time to sniff, inspect and thumbnail one blob")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void analyse(StoredBlob blob) throws IOException {
+        String contentHash = blob.getContentHash();
+        ContentCodec codec = ContentCodec.fromEncoding(blob.getContentEncoding());
+        String detectedType;
+        Rendition rendition = null;
+
+        // Read straight from the backend: going through BlobStore.open would count towards the content cache
+        try (InputStream in = new BufferedInputStream(codec.decode(storageBackend.get(contentHash)), READ_BUFFER)) {
+            byte[] header = new byte[MimeSniffer.HEADER_BYTES];
+            in.mark(MimeSniffer.HEADER_BYTES);
+            int length = in.readNBytes(header, 0, header.length);
+            in.reset();
+            detectedType = MimeSniffer.detect(header, length);
+            rendition = previewService.render(blob, detectedType, in, DerivedObjects.DEFAULT_THUMBNAIL_SIZE);
+        }
+
+        String thumbnailKey = null;
+        if (rendition != null && rendition.thumbnail() != null) {
+            thumbnailKey = DerivedObjects.thumbnailKey(contentHash, DerivedObjects.DEFAULT_THUMBNAIL_SIZE);
+            storageBackend.put(thumbnailKey, new ByteArrayInputStream(rendition.thumbnail()), rendition.thumbnail().length);
+        }
+
+        Rendition result = rendition;
+        String storedThumbnail = thumbnailKey;
+        Boolean saved = transactionTemplate.execute(status -> {
+            BlobMetadata metadata = metadataRepository.findById(contentHash).orElse(null);
+            if (metadata == null) {
+                return false;
+            }
+            metadata.setStatus(BlobMetadata.Status.DONE);
+            metadata.setDetectedType(detectedType);
+            if (result != null) {
+                metadata.setWidth(result.width());
+                metadata.setHeight(result.height());
+                metadata.setPageCount(result.pageCount());
+            }
+            metadata.setThumbnailKey(storedThumbnail);
+            metadata.setLastError(null);
+            metadata.setUpdatedAt(LocalDateTime.now());
+            if (!MimeSniffer.OCTET_STREAM.equals(detectedType)) {
+                // The shared-link caches hold the old type; evicting here also evicts again after commit
+                for (TypedFile file : fileRepository.fillInFileType(contentHash, detectedType)) {
+                    shareTokenResolver.evict(file.shareToken());
+                    shareTokenResolver.evictFile(file.fileId());
+                }
+            }
+            return true;
+        });
+
+        if (!Boolean.TRUE.equals(saved) && thumbnailKey != null) {
+            // The blob was deleted meanwhile and its tombstone may already have run
+            storageBackend.delete(thumbnailKey);
+        }
+    }
+
+    /**
+     * @return {@code true} if the blob has now used up its attempts and was marked {@code FAILED}
+     */
+    private boolean recordFailure(String contentHash, Exception ex) {
+        String message = String.valueOf(ex.getMessage());
+        String lastError = message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+        Boolean failed = transactionTemplate.execute(status -> {
+            BlobMetadata metadata = metadataRepository.findById(contentHash).orElse(null);
+            if (metadata == null) {
+                return false;
+            }
+            int attempts = metadata.getAttempts() + 1;
+            metadata.setAttempts(attempts);
+            metadata.setLastError(lastError);
+            metadata.setUpdatedAt(LocalDateTime.now());
+            if (attempts >= maxAttempts) {
+                metadata.setStatus(BlobMetadata.Status.FAILED);
+            }
+            return attempts >= maxAttempts;
+        });
+        log.warn("Processing blob {} failed{}", contentHash, Boolean.TRUE.equals(failed) ? ", giving up" : ", will retry", ex);
+        return Boolean.TRUE.equals(failed);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.service;
+
+import com.example.demo.model.dto.HotFileDTO;
+import com.example.demo.repository.FileAccessStatsRepository;
+import com.example.demo.repository.FileAccessStatsRepositoryCustom.AccessDelta;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-file download counts and last access times, kept off the request path. A download only bumps a
+ * {@link LongAdder} in a per-file entry; every {@code stats.access.flush-interval} the growth since the last flush
+ * is written to {@code file_access_stats} as one JDBC batch of upserts, and once more on graceful shutdown.
+ *
+ * <p>The adders are never reset: the flush remembers what it has written and only advances that mark after the
+ * batch committed, so a failed flush is simply retried with the larger delta. Entries idle for
+ * {@code stats.access.idle-eviction} are dropped to bound memory; a download racing with that removal can be
+ * lost, which is fine for popularity data.
+ */
+@Slf4j
+@Service
+public class FileAccessTracker {
+
+    private final FileAccessStatsRepository statsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration idleEviction;
+    private final Map<Long, FileCounters> counters = new ConcurrentHashMap<>();
+    // Not synchronized: a flush holds a JDBC call and must not pin a virtual thread
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Timer flushTimer;
+
+    public FileAccessTracker(FileAccessStatsRepository statsRepository,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${stats.access.enabled:true}") boolean enabled,
+                             @Value("${stats.access.idle-eviction:PT10M}") Duration idleEviction) {
+        this.statsRepository = statsRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.idleEviction = idleEviction;
+        this.flushTimer = Timer.builder("stats.access.flush")
+                .description("Time to write pending download counters")
+                .register(meterRegistry);
+        Gauge.builder("stats.access.tracked", counters, Map::size)
+                .description("Files with in-memory download counters")
+                .register(meterRegistry);
+    }
+
+    public void recordDownload(Long fileId, boolean shared) {
+        if (!enabled || fileId == null) {
+            return;
+        }
+        FileCounters entry = counters.computeIfAbsent(fileId, id -> new FileCounters());
+        // Before the increments: a flush that sees the new count then also sees this time
+        entry.lastAccessMillis = System.currentTimeMillis();
+        if (shared) {
+            entry.sharedDownloads.increment();
+        }
+        entry.downloads.increment();
+    }
+
+    /**
+     * Files by flushed download count, or by last access when {@code recent}; pending counts are flushed first.
+     */
+    public List<HotFileDTO> hotFiles(int limit, boolean recent) {
+        flush();
+        PageRequest page = PageRequest.of(0, limit);
+        return recent ? statsRepository.findRecentlyAccessed(page) : statsRepository.findMostDownloaded(page);
+    }
+
+    @Scheduled(fixedDelayString = "${stats.access.flush-interval:PT30S}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            long start = System.nanoTime();
+            List<AccessDelta> deltas = new ArrayList<>();
+            List<Snapshot> snapshots = new ArrayList<>();
+            long idleBefore = System.currentTimeMillis() - idleEviction.toMillis();
+
+            counters.forEach((fileId, entry) -> {
+                long downloads = entry.downloads.sum();
+                long shared = Math.min(entry.sharedDownloads.sum(), downloads);
+                long lastAccess = entry.lastAccessMillis;
+                if (downloads > entry.flushedDownloads) {
+                    deltas.add(new AccessDelta(fileId, downloads - entry.flushedDownloads, shared - entry.flushedShared,
+                            LocalDateTime.ofInstant(Instant.ofEpochMilli(lastAccess), ZoneId.systemDefault())));
+                    snapshots.add(new Snapshot(entry, downloads, shared));
+                } else if (lastAccess < idleBefore) {
+                    counters.remove(fileId, entry);
+                }
+            });
+            if (deltas.isEmpty()) {
+                return;
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> statsRepository.addAccesses(deltas));
+            } catch (RuntimeException ex) {
+                log.warn("Could not flush download counters of {} files, will retry", deltas.size(), ex);
+                return;
+            }
+            snapshots.forEach(snapshot -> {
+                snapshot.entry.flushedDownloads = snapshot.downloads;
+                snapshot.entry.flushedShared = snapshot.shared;
+            });
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static final class FileCounters {
+
+        private final LongAdder downloads = new LongAdder();
+        private final LongAdder sharedDownloads = new LongAdder();
+        private volatile long lastAccessMillis;
+        // Only touched by the flush, under flushLock
+        private long flushedDownloads;
+        private long flushedShared;
+    }
+
+    private record Snapshot(FileCounters entry, long downloads, long shared) {
+    }
+}
@@ -2,12 +2,34 @@ package com.example.demo.service;
 
 import com.example.demo.exception.FileNotFoundException;
 import com.example.demo.exception.FileStorageException;
+import com.example.demo.exception.InvalidRequestException;
+import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.exception.UserNotFoundException;
 import com.example.demo.model.dto.FileDTO;
+import com.example.demo.model.dto.BulkItemResult;
+import com.example.demo.model.dto.FileCursor;
+import com.example.demo.model.dto.FileDownload;
+import com.example.demo.model.dto.FileListItem;
+import com.example.demo.model.dto.FileListQuery;
+import com.example.demo.model.dto.FileMetadataDTO;
+import com.example.demo.model.dto.FilePage;
+import com.example.demo.model.dto.SharedFileMetadata;
+import com.example.demo.model.dto.SignedShareLinkDTO;
 import com.example.demo.model.entity.File;  // Add this import for your custom File entity
 import com.example.demo.model.entity.User;
+import com.example.demo.repository.BlobMetadataRepository;
 import com.example.demo.repository.FileRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.service.PreviewService.PreviewRef;
+import com.example.demo.service.SignedShareLinkService.SignedShareLink;
+import com.example.demo.storage.BlobStore;
+import com.example.demo.storage.BlobStore.CommittedBlob;
+import com.example.demo.storage.BlobStore.StagedBlob;
+import com.example.demo.storage.ContentCodec;
+import com.example.demo.storage.DecodingResource;
+import com.example.demo.storage.DeletionQueue;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
@@ -17,19 +39,26 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.transaction.Transactional;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
@@ -38,10 +67,27 @@ public class FileService {
 
     private final FileRepository fileRepository;
     private final UserRepository userRepository;
+    private final BlobStore blobStore;
+    private final ShareTokenResolver shareTokenResolver;
+    private final StorageQuotaService storageQuotaService;
+    private final DeletionQueue deletionQueue;
+    private final BlobMetadataRepository blobMetadataRepository;
+    private final ContentProcessingPipeline contentProcessingPipeline;
+    private final PreviewService previewService;
+    private final SignedShareLinkService signedShareLinkService;
+    private final FileAccessTracker fileAccessTracker;
     private final Path fileStorageLocation;
+    private final DataSize maxFileSize;
+    private final Counter shareLinkHits;
+    private final Counter shareLinkMisses;
 
+    @Value("${file.zip.max-files:1000}")
+    private int maxArchiveFiles;
 
-    private static final long MAX_FILE_SIZE = 20 * 1024 * 1024;
+    @Value("${file.bulk.max-files:1000}")
+    private int maxBulkFiles;
+
+    private static final int MAX_PAGE_SIZE = 200;
 
     @Value("${app.base-url}")
     private String baseUrl;
@@ -49,9 +95,32 @@ public class FileService {
     @Autowired
     public FileService(FileRepository fileRepository,
                        UserRepository userRepository,
-                       @Value("${file.upload-dir}") String uploadDir) {
+                       BlobStore blobStore,
+                       ShareTokenResolver shareTokenResolver,
+                       StorageQuotaService storageQuotaService,
+                       DeletionQueue deletionQueue,
+                       BlobMetadataRepository blobMetadataRepository,
+                       ContentProcessingPipeline contentProcessingPipeline,
+                       PreviewService previewService,
+                       SignedShareLinkService signedShareLinkService,
+                       FileAccessTracker fileAccessTracker,
+                       MeterRegistry meterRegistry,
+                       @Value("${file.upload-dir}") String uploadDir,
+                       @Value("${file.max-file-size:${spring.servlet.multipart.max-file-size}}") DataSize maxFileSize) {
         this.fileRepository = fileRepository;
         this.userRepository = userRepository;
+        this.blobStore = blobStore;
+        this.shareTokenResolver = shareTokenResolver;
+        this.storageQuotaService = storageQuotaService;
+        this.deletionQueue = deletionQueue;
+        this.blobMetadataRepository = blobMetadataRepository;
+        this.contentProcessingPipeline = contentProcessingPipeline;
+        this.previewService = previewService;
+        this.signedShareLinkService = signedShareLinkService;
+        this.fileAccessTracker = fileAccessTracker;
+        this.maxFileSize = maxFileSize;
+        this.shareLinkHits = shareLinkCounter(meterRegistry, "hit");
+        this.shareLinkMisses = shareLinkCounter(meterRegistry, "not_found");
         this.fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
 
         try {
@@ -62,44 +131,124 @@ public class FileService {
     }
 
     public FileDTO uploadFile(MultipartFile file, Long userId) {
-        validateFileSize(file);
+        validateFileSize(file.getSize());
 
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         String fileName = normalizeFileName(file.getOriginalFilename());
-        String uniqueFileName = generateUniqueFileName(fileName);
+        storageQuotaService.checkAvailable(userId, file.getSize());
+        StagedBlob staged = blobStore.stage(file);
 
         try {
-            Path targetLocation = this.fileStorageLocation.resolve(uniqueFileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            // Charged after staging so the users row is not locked while the file is hashed
+            storageQuotaService.reserve(userId, staged.size());
+            return registerStoredFile(user, fileName, file.getContentType(), staged);
+        } catch (RuntimeException ex) {
+            blobStore.discard(staged.path());
+            throw ex;
+        }
+    }
 
-            File fileEntity = createFileEntity(file, user, uniqueFileName, targetLocation);
-            File savedFile = fileRepository.save(fileEntity);
-            return convertToDTO(savedFile);
-        } catch (IOException ex) {
-            throw new FileStorageException("Could not store file " + fileName, ex);
+    /**
+     * @param counts whether the response for this representation counts as a download in the access statistics
+     */
+    public FileDownload downloadFile(Long fileId, Long userId, Predicate<FileDownload> counts) {
+        File file = fileRepository.findById(fileId)
+                .orElseThrow(() -> new FileNotFoundException("File not found with id: " + fileId));
+
+        validateUserAccess(file, userId);
+
+        FileDownload download = toDownload(SharedFileMetadata.from(file));
+        if (counts.test(download)) {
+            fileAccessTracker.recordDownload(fileId, false);
         }
+        return download;
     }
 
-    public Resource downloadFile(Long fileId, Long userId) {
+    /**
+     * What the post-upload pipeline found out about the file's content; fields stay empty while it is pending.
+     */
+    public FileMetadataDTO getFileMetadata(Long fileId, Long userId) {
         File file = fileRepository.findById(fileId)
                 .orElseThrow(() -> new FileNotFoundException("File not found with id: " + fileId));
 
         validateUserAccess(file, userId);
 
-        try {
-            Path filePath = this.fileStorageLocation.resolve(Paths.get(file.getFilePath()).getFileName());
-            Resource resource = new UrlResource(filePath.toUri());
+        FileMetadataDTO dto = new FileMetadataDTO();
+        dto.setFileId(file.getFileId());
+        dto.setFileName(file.getFileName());
+        dto.setDeclaredType(file.getFileType());
+        if (file.getContentHash() != null) {
+            blobMetadataRepository.findById(file.getContentHash()).ifPresent(metadata -> {
+                dto.setProcessingStatus(metadata.getStatus().name());
+                dto.setDetectedType(metadata.getDetectedType());
+                dto.setWidth(metadata.getWidth());
+                dto.setHeight(metadata.getHeight());
+                dto.setPageCount(metadata.getPageCount());
+                dto.setThumbnailAvailable(metadata.getThumbnailKey() != null);
+            });
+        }
+        return dto;
+    }
 
-            if (resource.exists() && resource.isReadable()) {
-                return resource;
-            } else {
-                throw new FileNotFoundException("File not found: " + file.getFileName());
-            }
-        } catch (MalformedURLException ex) {
-            throw new FileNotFoundException("File not found: " + file.getFileName(), ex);
+    /**
+     * Resolves the preview of a file at the thumbnail size covering {@code size}. Only checks access; the bytes
+     * are loaded by {@link #loadPreview} so a matching {@code If-None-Match} never reaches storage.
+     */
+    public PreviewRef previewOf(Long fileId, Long userId, int size) {
+        File file = fileRepository.findById(fileId)
+                .orElseThrow(() -> new FileNotFoundException("File not found with id: " + fileId));
+
+        validateUserAccess(file, userId);
+
+        if (file.getContentHash() == null) {
+            throw new ResourceNotFoundException("No preview available");
         }
+        return previewService.ref(file.getContentHash(), size);
+    }
+
+    /**
+     * Loads a preview resolved by {@link #previewOf}. A bucket that has not been rendered yet is queued for
+     * rendering and reported as missing until it exists.
+     */
+    public byte[] loadPreview(PreviewRef preview) {
+        return previewService.load(preview).orElseThrow(() -> {
+            contentProcessingPipeline.submitPreview(preview);
+            return new ResourceNotFoundException("No preview available");
+        });
+    }
+
+    /**
+     * Resolves the files of a ZIP download with one {@code IN} query and the same access rule as
+     * {@link #downloadFile}. The returned downloads only hold lazily opened resources, so the archive can be
+     * streamed after this transaction has ended. Nothing is counted here: the caller records the downloads once
+     * the archive has been written.
+     */
+    public List<FileDownload> prepareArchive(List<Long> fileIds, Long userId) {
+        if (fileIds == null || fileIds.isEmpty()) {
+            throw new InvalidRequestException("No files selected");
+        }
+        List<Long> ids = fileIds.stream().distinct().toList();
+        if (ids.size() > maxArchiveFiles) {
+            throw new InvalidRequestException("At most " + maxArchiveFiles + " files can be downloaded at once");
+        }
+
+        Map<Long, File> files = fileRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(File::getFileId, Function.identity()));
+        if (files.size() != ids.size()) {
+            List<Long> missing = ids.stream().filter(id -> !files.containsKey(id)).toList();
+            throw new FileNotFoundException("Files not found with ids: " + missing);
+        }
+
+        boolean isAdmin = isCurrentUserAdmin();
+        List<FileDownload> downloads = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            File file = files.get(id);
+            validateUserAccess(file, userId, isAdmin);
+            downloads.add(toDownload(SharedFileMetadata.from(file)));
+        }
+        return downloads;
     }
 
     public void deleteFile(Long fileId, Long userId) {
@@ -107,46 +256,214 @@ public class FileService {
                 .orElseThrow(() -> new FileNotFoundException("File not found with id: " + fileId));
 
         validateUserAccess(file, userId);
+        shareTokenResolver.evict(file.getShareToken());
+        shareTokenResolver.evictFile(file.getFileId());
+        blobStore.evictCached(file.getContentHash());
+        previewService.evict(file.getContentHash());
 
-        try {
-            Path filePath = this.fileStorageLocation.resolve(Paths.get(file.getFilePath()).getFileName());
-            boolean deleted = Files.deleteIfExists(filePath);
+        if (file.getFileSize() != null) {
+            storageQuotaService.release(file.getUser().getId(), file.getFileSize());
+        }
+
+        fileRepository.delete(file);
+
+        // The bytes are removed after commit, so a rollback never leaves a row pointing at nothing
+        if (file.getContentHash() != null) {
+            blobStore.release(file.getContentHash());
+        } else {
+            deletionQueue.deleteLocalFileAfterCommit(
+                    this.fileStorageLocation.resolve(Paths.get(file.getFilePath()).getFileName()));
+        }
+    }
 
-            if (!deleted) {
-                throw new FileStorageException("File not found in storage: " + file.getFileName());
+    /**
+     * Deletes every accessible file in {@code fileIds} with a fixed number of statements: one {@code IN} select,
+     * one {@code IN} delete and one JDBC batch for the blob reference counts. Stored bytes are removed afterwards
+     * by the {@link DeletionQueue}.
+     */
+    public List<BulkItemResult> deleteFiles(List<Long> fileIds, Long userId) {
+        List<BulkItemResult> results = new ArrayList<>();
+        List<File> allowed = resolveBulk(fileIds, userId, results);
+        if (allowed.isEmpty()) {
+            return results;
+        }
+
+        allowed.forEach(file -> {
+            shareTokenResolver.evict(file.getShareToken());
+            shareTokenResolver.evictFile(file.getFileId());
+            blobStore.evictCached(file.getContentHash());
+            previewService.evict(file.getContentHash());
+        });
+        fileRepository.deleteAllByIdInBatch(allowed.stream().map(File::getFileId).toList());
+
+        allowed.stream()
+                .filter(file -> file.getFileSize() != null)
+                .collect(Collectors.groupingBy(file -> file.getUser().getId(), Collectors.summingLong(File::getFileSize)))
+                .forEach(storageQuotaService::release);
+
+        blobStore.releaseAll(allowed.stream()
+                .filter(file -> file.getContentHash() != null)
+                .collect(Collectors.groupingBy(File::getContentHash, Collectors.counting())));
+
+        allowed.stream()
+                .filter(file -> file.getContentHash() == null)
+                .forEach(file -> deletionQueue.deleteLocalFileAfterCommit(
+                        this.fileStorageLocation.resolve(Paths.get(file.getFilePath()).getFileName())));
+
+        return results;
+    }
+
+    /**
+     * Turns sharing on or off for every accessible file in {@code fileIds}. Files already in the requested state
+     * keep their token; newly shared ones get a fresh token, as with {@link #toggleFileSharing}.
+     */
+    public List<BulkItemResult> setSharing(List<Long> fileIds, Long userId, boolean enabled) {
+        List<BulkItemResult> results = new ArrayList<>();
+        List<File> allowed = resolveBulk(fileIds, userId, results);
+
+        List<File> changed = allowed.stream().filter(file -> file.isShareEnabled() != enabled).toList();
+        changed.forEach(file -> {
+            shareTokenResolver.evict(file.getShareToken());
+            shareTokenResolver.evictFile(file.getFileId());
+        });
+
+        Map<Long, String> shareTokens = new HashMap<>();
+        allowed.forEach(file -> shareTokens.put(file.getFileId(), file.getShareToken()));
+
+        if (enabled) {
+            Map<Long, String> newTokens = new HashMap<>();
+            changed.forEach(file -> newTokens.put(file.getFileId(), generateShareToken()));
+            if (!newTokens.isEmpty()) {
+                fileRepository.enableSharing(newTokens);
             }
+            newTokens.values().forEach(shareTokenResolver::evict);
+            shareTokens.putAll(newTokens);
+        } else if (!changed.isEmpty()) {
+            fileRepository.disableSharing(changed.stream().map(File::getFileId).toList());
+            changed.forEach(file -> blobStore.evictCached(file.getContentHash()));
+        }
 
-            fileRepository.delete(file);
-        } catch (IOException ex) {
-            throw new FileStorageException("Could not delete file: " + file.getFileName(), ex);
+        if (enabled) {
+            for (BulkItemResult result : results) {
+                if (result.getStatus() == BulkItemResult.Status.OK) {
+                    result.setShareUrl(baseUrl + "/files/shared/" + shareTokens.get(result.getFileId()));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Loads the requested files in one query and records a result per id; returns the ones the caller may modify.
+     */
+    private List<File> resolveBulk(List<Long> fileIds, Long userId, List<BulkItemResult> results) {
+        if (fileIds == null || fileIds.isEmpty()) {
+            throw new InvalidRequestException("No files selected");
+        }
+        List<Long> ids = fileIds.stream().distinct().toList();
+        if (ids.size() > maxBulkFiles) {
+            throw new InvalidRequestException("At most " + maxBulkFiles + " files can be changed at once");
+        }
+
+        Map<Long, File> files = fileRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(File::getFileId, Function.identity()));
+        boolean isAdmin = isCurrentUserAdmin();
+
+        List<File> allowed = new ArrayList<>();
+        for (Long id : ids) {
+            File file = files.get(id);
+            if (file == null) {
+                results.add(BulkItemResult.of(id, BulkItemResult.Status.NOT_FOUND));
+            } else if (!isAdmin && !file.getUser().getId().equals(userId)) {
+                results.add(BulkItemResult.of(id, BulkItemResult.Status.FORBIDDEN));
+            } else {
+                results.add(BulkItemResult.of(id, BulkItemResult.Status.OK));
+                allowed.add(file);
+            }
         }
+        return allowed;
     }
 
     public List<FileDTO> getUserFiles(Long userId) {
-        return fileRepository.findAllByUserId(userId)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        List<FileDTO> files = fileRepository.findDtosByUserId(userId);
+        for (FileDTO dto : files) {
+            if (dto.isShareEnabled() && dto.getShareToken() != null) {
+                dto.setShareUrl(baseUrl + "/files/shared/" + dto.getShareToken());
+            }
+        }
+        return files;
     }
 
+    /**
+     * Keyset-paginated listing. Fetches one row past the page to know whether another page exists, so the
+     * last page never costs an extra empty round trip.
+     */
+    public FilePage listUserFiles(Long userId, FileListQuery query) {
+        if (query.getLimit() < 1 || query.getLimit() > MAX_PAGE_SIZE) {
+            throw new InvalidRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        FileCursor after = StringUtils.hasText(query.getCursor())
+                ? FileCursor.decode(query.getCursor(), query.getSort())
+                : null;
+
+        List<FileListItem> items = fileRepository.findPage(userId, query, after, query.getLimit() + 1);
+
+        String nextCursor = null;
+        if (items.size() > query.getLimit()) {
+            items = items.subList(0, query.getLimit());
+            nextCursor = FileCursor.after(query.getSort(), items.get(items.size() - 1)).encode();
+        }
+
+        for (FileListItem item : items) {
+            if (item.isShareEnabled() && item.getShareToken() != null) {
+                item.setShareUrl(baseUrl + "/files/shared/" + item.getShareToken());
+            }
+        }
+
+        return new FilePage(items, nextCursor);
+    }
 
-    private void validateFileSize(MultipartFile file) {
-        if (file.getSize() > MAX_FILE_SIZE) {
-            throw new FileStorageException("File size exceeds maximum limit of " + MAX_FILE_SIZE / (1024 * 1024) + "MB");
+    /**
+     * Takes a blob reference for the staged content and records the {@code File} row pointing at it. The caller
+     * has already charged the size to the user's quota.
+     */
+    FileDTO registerStoredFile(User user, String fileName, String fileType, StagedBlob staged) {
+        CommittedBlob blob = blobStore.commit(staged, fileType);
+        File fileEntity = createFileEntity(user, fileName, fileType, staged.size(), blob.contentHash());
+        fileEntity.setContentHash(blob.contentHash());
+        fileEntity.setContentEncoding(blob.codec().encoding());
+        fileEntity.setStoredSize(blob.storedSize());
+        File savedFile = fileRepository.save(fileEntity);
+        if (blob.created()) {
+            contentProcessingPipeline.submitAfterCommit(blob.contentHash());
+        }
+        return convertToDTO(savedFile);
+    }
+
+    void validateFileSize(long fileSize) {
+        if (fileSize > maxFileSize.toBytes()) {
+            throw new FileStorageException("File size exceeds maximum limit of " + maxFileSize.toMegabytes() + "MB");
         }
     }
 
 private void validateUserAccess(File file, Long userId) {
-    Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-    boolean isAdmin = auth.getAuthorities().stream()
-            .anyMatch(a -> a.getAuthority().equals("ROLE_admin"));
+    validateUserAccess(file, userId, isCurrentUserAdmin());
+}
 
+private void validateUserAccess(File file, Long userId, boolean isAdmin) {
     if (!isAdmin && !file.getUser().getId().equals(userId)) {
         throw new AccessDeniedException("You don't have permission to access this file");
     }
 }
 
-    private String normalizeFileName(String fileName) {
+private boolean isCurrentUserAdmin() {
+    Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+    return auth.getAuthorities().stream()
+            .anyMatch(a -> a.getAuthority().equals("ROLE_admin"));
+}
+
+    String normalizeFileName(String fileName) {
         fileName = StringUtils.cleanPath(fileName);
         if (fileName.contains("..")) {
             throw new FileStorageException("Invalid file path sequence in filename");
@@ -154,17 +471,13 @@ private void validateUserAccess(File file, Long userId) {
         return fileName;
     }
 
-    private String generateUniqueFileName(String originalFileName) {
-        return System.currentTimeMillis() + "_" + originalFileName;
-    }
-
-    private File createFileEntity(MultipartFile file, User user, String fileName, Path filePath) {
+    private File createFileEntity(User user, String fileName, String fileType, long fileSize, String filePath) {
         File fileEntity = new File();
         fileEntity.setUser(user);
         fileEntity.setFileName(fileName);
-        fileEntity.setFileType(file.getContentType());
-        fileEntity.setFileSize(file.getSize());
-        fileEntity.setFilePath(filePath.toString());
+        fileEntity.setFileType(fileType);
+        fileEntity.setFileSize(fileSize);
+        fileEntity.setFilePath(filePath);
         return fileEntity;
     }
 
@@ -174,6 +487,8 @@ private void validateUserAccess(File file, Long userId) {
                 .orElseThrow(() -> new FileNotFoundException("File not found with id: " + fileId));
 
         validateUserAccess(file, userId);
+        shareTokenResolver.evict(file.getShareToken());
+        shareTokenResolver.evictFile(file.getFileId());
 
         if (!file.isShareEnabled()) {
             // Generează un nou token de partajare doar dacă activăm partajarea
@@ -183,9 +498,11 @@ private void validateUserAccess(File file, Long userId) {
             // Dezactivează partajarea și șterge token-ul
             file.setShareToken(null);
             file.setShareEnabled(false);
+            blobStore.evictCached(file.getContentHash());
         }
 
         file = fileRepository.save(file);
+        shareTokenResolver.evict(file.getShareToken());
         return convertToDTO(file);
     }
 
@@ -200,28 +517,124 @@ private void validateUserAccess(File file, Long userId) {
         if (file.getShareToken() == null) {
             file.setShareToken(UUID.randomUUID().toString());
             file = fileRepository.save(file);
+            shareTokenResolver.evict(file.getShareToken());
+            shareTokenResolver.evictFile(file.getFileId());
         }
 
         return baseUrl + "/files/shared/" + file.getShareToken();
     }
 
-    public Resource downloadSharedFile(String shareToken) {
-        File file = fileRepository.findByShareToken(shareToken)
-                .orElseThrow(() -> new FileNotFoundException("Shared file not found"));
+    /**
+     * Issues a signed link with its own expiry and optional download limit. Signed links work while the file is
+     * shared, so this turns sharing on if needed; turning it off revokes them for good, also once it is back on.
+     */
+    public SignedShareLinkDTO createSignedShareLink(Long fileId, Long userId, Duration ttl, Integer maxDownloads) {
+        File file = fileRepository.findById(fileId)
+                .orElseThrow(() -> new FileNotFoundException("File not found with id: " + fileId));
+
+        validateUserAccess(file, userId);
+
+        if (!file.isShareEnabled()) {
+            shareTokenResolver.evictFile(fileId);
+            file.setShareToken(generateShareToken());
+            file.setShareEnabled(true);
+            fileRepository.save(file);
+        }
+        SignedShareLink link = signedShareLinkService.issue(fileId, file.getShareToken(), ttl, maxDownloads);
+
+        SignedShareLinkDTO dto = new SignedShareLinkDTO();
+        dto.setShareUrl(baseUrl + "/files/s/" + signedShareLinkService.sign(link));
+        dto.setExpiresAt(link.expiresAt());
+        dto.setMaxDownloads(maxDownloads);
+        return dto;
+    }
+
+    /**
+     * Serves a signed link. The token is verified before anything else, the file comes from the
+     * {@link ShareTokenResolver} cache and the download is counted in memory, so a hit needs no database access.
+     *
+     * @param counts whether the response for this representation counts towards the link's download limit
+     */
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public FileDownload downloadSignedShare(String token, Predicate<FileDownload> counts) {
+        SignedShareLink link = signedShareLinkService.verify(token);
+
+        SharedFileMetadata file = shareTokenResolver.resolveFile(link.fileId())
+                .filter(shared -> shared.shareEnabled() && signedShareLinkService.isCurrent(link, shared.shareToken()))
+                .orElse(null);
+        if (file == null) {
+            shareLinkMisses.increment();
+            throw new ResourceNotFoundException("Shared file not found");
+        }
 
+        shareLinkHits.increment();
+        FileDownload download = toDownload(file);
+        if (counts.test(download)) {
+            signedShareLinkService.recordDownload(link);
+            fileAccessTracker.recordDownload(file.fileId(), true);
+        }
+        return download;
+    }
+
+    /**
+     * Runs without a transaction: on a cache hit the request never needs a database connection.
+     *
+     * @param counts whether the response for this representation counts as a download in the access statistics
+     */
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public FileDownload downloadSharedFile(String shareToken, Predicate<FileDownload> counts) {
+        SharedFileMetadata file = shareTokenResolver.resolve(shareToken).orElse(null);
+        if (file == null) {
+            shareLinkMisses.increment();
+            throw new FileNotFoundException("Shared file not found");
+        }
+
+        shareLinkHits.increment();
+        FileDownload download = toDownload(file);
+        if (counts.test(download)) {
+            fileAccessTracker.recordDownload(file.fileId(), true);
+        }
+        return download;
+    }
+
+    private static Counter shareLinkCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("share.link.requests")
+                .description("Public share-link requests by whether the token resolved")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private FileDownload toDownload(SharedFileMetadata file) {
         try {
-            Path filePath = this.fileStorageLocation.resolve(
-                    Paths.get(file.getFilePath()).getFileName()
-            );
-            Resource resource = new UrlResource(filePath.toUri());
+            Instant lastModified = file.uploadedAt() != null ? file.uploadedAt().atZone(ZoneId.systemDefault()).toInstant() : null;
+
+            if (file.contentHash() != null && file.contentEncoding() != null) {
+                ContentCodec codec = ContentCodec.fromEncoding(file.contentEncoding());
+                FileDownload encoded = new FileDownload(blobStore.open(file.contentHash(), file.storedSize()),
+                        file.fileName(), file.storedSize(), file.contentHash(), lastModified, codec.encoding(), null);
+                if (!encoded.getResource().exists()) {
+                    throw new FileNotFoundException("File not found: " + file.fileName());
+                }
+                // Decode the resource opened above so a download counts once towards the content cache
+                Resource decoded = new DecodingResource(encoded.getResource(), codec, file.fileSize());
+                return new FileDownload(decoded, file.fileName(), file.fileSize(), file.contentHash(), lastModified,
+                        null, encoded);
+            }
+
+            Resource resource = file.contentHash() != null
+                    ? blobStore.open(file.contentHash(), file.fileSize())
+                    : new UrlResource(this.fileStorageLocation.resolve(Paths.get(file.filePath()).getFileName()).toUri());
 
             if (resource.exists() && resource.isReadable()) {
-                return resource;
+                return new FileDownload(resource, file.fileName(),
+                        file.fileSize() != null ? file.fileSize() : resource.contentLength(),
+                        file.contentHash(),
+                        lastModified);
             } else {
-                throw new FileNotFoundException("File not found: " + file.getFileName());
+                throw new FileNotFoundException("File not found: " + file.fileName());
             }
-        } catch (MalformedURLException ex) {
-            throw new FileNotFoundException("File not found: " + file.getFileName(), ex);
+        } catch (IOException ex) {
+            throw new FileNotFoundException("File not found: " + file.fileName(), ex);
         }
     }
 
@@ -229,7 +642,7 @@ private void validateUserAccess(File file, Long userId) {
         return UUID.randomUUID().toString();
     }
 
-    private FileDTO convertToDTO(File file) {
+    FileDTO convertToDTO(File file) {
         FileDTO dto = new FileDTO();
         dto.setFileId(file.getFileId());
         dto.setFileName(file.getFileName());
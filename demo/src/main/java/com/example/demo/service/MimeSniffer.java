@@ -0,0 +1,134 @@
+package com.example.demo.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Detects the media type of content from its leading bytes, independently of what the client declared.
+ * Covers the signatures of the types users actually upload; anything else is {@code text/plain} if the header
+ * decodes as UTF-8 without control bytes, otherwise {@code application/octet-stream}.
+ */
+final class MimeSniffer {
+
+    static final String OCTET_STREAM = "application/octet-stream";
+
+    /** Enough for every signature below and for a fair text check. */
+    static final int HEADER_BYTES = 4096;
+
+    private MimeSniffer() {
+    }
+
+    static String detect(byte[] header, int length) {
+        if (length <= 0) {
+            return OCTET_STREAM;
+        }
+        if (startsWith(header, length, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "image/png";
+        }
+        if (startsWith(header, length, 0, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(header, length, 0, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(header, length, 0, 'R', 'I', 'F', 'F') && startsWith(header, length, 8, 'W', 'E', 'B', 'P')) {
+            return "image/webp";
+        }
+        if (startsWith(header, length, 0, 'R', 'I', 'F', 'F') && startsWith(header, length, 8, 'W', 'A', 'V', 'E')) {
+            return "audio/wav";
+        }
+        if (startsWith(header, length, 0, 'B', 'M') && length > 14) {
+            return "image/bmp";
+        }
+        if (startsWith(header, length, 0, 'I', 'I', 0x2A, 0x00) || startsWith(header, length, 0, 'M', 'M', 0x00, 0x2A)) {
+            return "image/tiff";
+        }
+        if (startsWith(header, length, 0, '%', 'P', 'D', 'F', '-')) {
+            return "application/pdf";
+        }
+        if (startsWith(header, length, 0, 'P', 'K', 0x03, 0x04)) {
+            return "application/zip";
+        }
+        if (startsWith(header, length, 0, 0x1F, 0x8B)) {
+            return "application/gzip";
+        }
+        if (startsWith(header, length, 0, '7', 'z', 0xBC, 0xAF, 0x27, 0x1C)) {
+            return "application/x-7z-compressed";
+        }
+        if (startsWith(header, length, 0, 'R', 'a', 'r', '!', 0x1A, 0x07)) {
+            return "application/vnd.rar";
+        }
+        if (startsWith(header, length, 4, 'f', 't', 'y', 'p')) {
+            return "video/mp4";
+        }
+        if (startsWith(header, length, 0, 'I', 'D', '3') || startsWith(header, length, 0, 0xFF, 0xFB)) {
+            return "audio/mpeg";
+        }
+        if (startsWith(header, length, 0, 'O', 'g', 'g', 'S')) {
+            return "application/ogg";
+        }
+        if (startsWith(header, length, 0, 0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1)) {
+            return "application/x-ole-storage";
+        }
+        return isText(header, length) ? textType(header, length) : OCTET_STREAM;
+    }
+
+    static boolean isImage(String type) {
+        return type != null && type.startsWith("image/");
+    }
+
+    private static String textType(byte[] header, int length) {
+        String start = new String(header, 0, Math.min(length, 256), StandardCharsets.UTF_8).stripLeading();
+        if (start.startsWith("<?xml")) {
+            return "application/xml";
+        }
+        if (start.regionMatches(true, 0, "<!doctype html", 0, 14) || start.regionMatches(true, 0, "<html", 0, 5)) {
+            return "text/html";
+        }
+        if (start.startsWith("{") || start.startsWith("[")) {
+            return "application/json";
+        }
+        return "text/plain";
+    }
+
+    private static boolean isText(byte[] header, int length) {
+        for (int i = 0; i < length; i++) {
+            int b = header[i] & 0xFF;
+            if (b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f') {
+                return false;
+            }
+        }
+        // The header may end inside a multi-byte sequence: drop the last sequence rather than reject the text
+        int end = length;
+        int continuation = 0;
+        while (continuation < 3 && end - continuation > 0 && (header[end - continuation - 1] & 0xC0) == 0x80) {
+            continuation++;
+        }
+        if (end - continuation > 0 && (header[end - continuation - 1] & 0xC0) == 0xC0) {
+            end -= continuation + 1;
+        }
+        try {
+            StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(header, 0, end));
+            return true;
+        } catch (CharacterCodingException ex) {
+            return false;
+        }
+    }
+
+    private static boolean startsWith(byte[] header, int length, int offset, int... signature) {
+        if (length < offset + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((header[offset + i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.FileStorageException;
+import com.example.demo.model.entity.BlobMetadata;
+import com.example.demo.model.entity.StoredBlob;
+import com.example.demo.repository.BlobMetadataRepository;
+import com.example.demo.repository.StoredBlobRepository;
+import com.example.demo.service.ThumbnailRenderer.Rendition;
+import com.example.demo.storage.BlobStore;
+import com.example.demo.storage.ContentCodec;
+import com.example.demo.storage.DerivedObjects;
+import com.example.demo.storage.StorageBackend;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+/**
+ * Serves size-bucketed JPEG previews. Each bucket is rendered at most once per content and kept as a derived
+ * object next to the blob ({@link DerivedObjects}); buckets below the default size are scaled down from the
+ * default thumbnail instead of decoding the original again. The most requested previews are also kept in a small
+ * byte-weighted in-memory cache, so a grid of tiles is served without touching storage.
+ *
+ * <p>A missing bucket is never rendered on the request thread: {@link #load} only returns what is cached or
+ * stored, and {@link ContentProcessingPipeline#submitPreview} renders the rest on the processing pool.
+ *
+ * <p>Previews are addressed by content hash and size, so they never change: the ETag is derived from both and
+ * can be checked before anything is loaded.
+ */
+@Slf4j
+@Service
+public class PreviewService {
+
+    private static final String PDF = "application/pdf";
+    private static final int READ_BUFFER = 64 * 1024;
+
+    private final BlobMetadataRepository metadataRepository;
+    private final StoredBlobRepository storedBlobRepository;
+    private final StorageBackend storageBackend;
+    private final BlobStore blobStore;
+    private final ThumbnailRenderer thumbnailRenderer;
+    private final long maxPdfSize;
+    private final Cache<String, byte[]> previews;
+
+    public PreviewService(BlobMetadataRepository metadataRepository,
+                          StoredBlobRepository storedBlobRepository,
+                          StorageBackend storageBackend,
+                          BlobStore blobStore,
+                          ThumbnailRenderer thumbnailRenderer,
+                          MeterRegistry meterRegistry,
+                          @Value("${content.processing.max-pdf-size:100MB}") DataSize maxPdfSize,
+                          @Value("${preview.cache.max-size:32MB}") DataSize cacheSize) {
+        this.metadataRepository = metadataRepository;
+        this.storedBlobRepository = storedBlobRepository;
+        this.storageBackend = storageBackend;
+        this.blobStore = blobStore;
+        this.thumbnailRenderer = thumbnailRenderer;
+        this.maxPdfSize = maxPdfSize.toBytes();
+        this.previews = Caffeine.newBuilder()
+                .maximumWeight(cacheSize.toBytes())
+                .weigher((String key, byte[] bytes) -> bytes.length)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, previews, "previews");
+    }
+
+    /**
+     * A preview of some content at one bucket size.
+     */
+    public record PreviewRef(String contentHash, int size) {
+
+        public String storageKey() {
+            return DerivedObjects.thumbnailKey(contentHash, size);
+        }
+
+        public String eTag() {
+            return "\"" + contentHash + ".t" + size + "\"";
+        }
+    }
+
+    public PreviewRef ref(String contentHash, int requestedSize) {
+        return new PreviewRef(contentHash, DerivedObjects.thumbnailBucket(requestedSize));
+    }
+
+    /**
+     * The cached or stored preview. Reads storage outside the cache, so a slow read holds up no other key.
+     *
+     * @return empty if the bucket has not been rendered (yet)
+     */
+    public Optional<byte[]> load(PreviewRef ref) {
+        byte[] preview = previews.getIfPresent(ref.storageKey());
+        if (preview != null) {
+            return Optional.of(preview);
+        }
+        try {
+            preview = readStored(ref.storageKey());
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not load preview", ex);
+        }
+        if (preview != null) {
+            previews.put(ref.storageKey(), preview);
+        }
+        return Optional.ofNullable(preview);
+    }
+
+    /**
+     * Drops the cached previews of some content, e.g. when the file is deleted.
+     */
+    public void evict(String contentHash) {
+        if (contentHash != null) {
+            previews.invalidateAll(DerivedObjects.keys(contentHash));
+        }
+    }
+
+    /**
+     * Renders a thumbnail of {@code content}, which is the decoded content of {@code blob} of the given media type.
+     *
+     * @return {@code null} if the type has no thumbnails or the content is too large to render
+     */
+    public Rendition render(StoredBlob blob, String type, InputStream content, int size) throws IOException {
+        if (MimeSniffer.isImage(type)) {
+            return thumbnailRenderer.renderImage(content, size);
+        }
+        if (!PDF.equals(type) || blob.getBlobSize() > maxPdfSize) {
+            return null;
+        }
+
+        // PDFBox needs random access: use the blob file when it is local and uncompressed, otherwise spool it
+        ContentCodec codec = ContentCodec.fromEncoding(blob.getContentEncoding());
+        Optional<Path> local = codec == ContentCodec.IDENTITY
+                ? storageBackend.localPath(blob.getContentHash()) : Optional.empty();
+        if (local.isPresent()) {
+            return thumbnailRenderer.renderPdf(local.get(), size);
+        }
+        Path spooled = blobStore.newStagingFile();
+        try {
+            Files.copy(content, spooled, StandardCopyOption.REPLACE_EXISTING);
+            return thumbnailRenderer.renderPdf(spooled, size);
+        } finally {
+            blobStore.discard(spooled);
+        }
+    }
+
+    /**
+     * Renders and stores a missing bucket. Does nothing if the content has no preview (not an image or PDF, not
+     * processed yet, or processing failed) or the bucket exists by now. Slow: call it from a worker thread.
+     */
+    public void renderMissing(PreviewRef ref) throws IOException {
+        BlobMetadata metadata = metadataRepository.findById(ref.contentHash()).orElse(null);
+        if (metadata == null || metadata.getThumbnailKey() == null
+                || storageBackend.stat(ref.storageKey()).isPresent()) {
+            return;
+        }
+
+        byte[] preview = ref.size() < DerivedObjects.DEFAULT_THUMBNAIL_SIZE ? fromDefaultThumbnail(ref) : null;
+        if (preview == null) {
+            preview = fromOriginal(ref, metadata.getDetectedType());
+        }
+        if (preview == null) {
+            return;
+        }
+
+        storageBackend.put(ref.storageKey(), new ByteArrayInputStream(preview), preview.length);
+        if (!metadataRepository.existsById(ref.contentHash())) {
+            // The blob was deleted while rendering and its derived objects may already be gone
+            storageBackend.delete(ref.storageKey());
+            return;
+        }
+        previews.put(ref.storageKey(), preview);
+        log.debug("Rendered {}", ref.storageKey());
+    }
+
+    /**
+     * Scales the default thumbnail down.
+     */
+    private byte[] fromDefaultThumbnail(PreviewRef ref) throws IOException {
+        String defaultKey = DerivedObjects.thumbnailKey(ref.contentHash(), DerivedObjects.DEFAULT_THUMBNAIL_SIZE);
+        byte[] thumbnail = previews.getIfPresent(defaultKey);
+        if (thumbnail == null) {
+            thumbnail = readStored(defaultKey);
+        }
+        BufferedImage image = thumbnail != null ? ImageIO.read(new ByteArrayInputStream(thumbnail)) : null;
+        return image != null ? thumbnailRenderer.toJpeg(image, ref.size()) : null;
+    }
+
+    /**
+     * @return {@code null} if the object does not exist
+     */
+    private byte[] readStored(String key) throws IOException {
+        try (InputStream in = storageBackend.get(key)) {
+            return in.readAllBytes();
+        } catch (NoSuchFileException | java.io.FileNotFoundException ex) {
+            return null;
+        }
+    }
+
+    private byte[] fromOriginal(PreviewRef ref, String type) throws IOException {
+        StoredBlob blob = storedBlobRepository.findById(ref.contentHash()).orElse(null);
+        if (blob == null) {
+            return null;
+        }
+        ContentCodec codec = ContentCodec.fromEncoding(blob.getContentEncoding());
+        try (InputStream in = new BufferedInputStream(codec.decode(storageBackend.get(ref.contentHash())), READ_BUFFER)) {
+            Rendition rendition = render(blob, type, in, ref.size());
+            return rendition != null ? rendition.thumbnail() : null;
+        }
+    }
+}
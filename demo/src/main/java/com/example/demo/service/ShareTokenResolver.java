@@ -0,0 +1,73 @@
+package com.example.demo.service;
+
+import com.example.demo.config.CacheConfig;
+import com.example.demo.model.dto.SharedFileMetadata;
+import com.example.demo.repository.FileRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+/**
+ * Resolves share tokens through the {@value CacheConfig#SHARE_TOKENS} cache, so repeated hits on a public link
+ * stay off the database. Misses are cached too, which makes probing with bogus tokens cheap. Signed links carry
+ * the file id instead and resolve it through {@value CacheConfig#SHARED_FILES}.
+ */
+@Service
+@RequiredArgsConstructor
+public class ShareTokenResolver {
+
+    private final FileRepository fileRepository;
+    private final CacheManager cacheManager;
+
+    @Cacheable(cacheNames = CacheConfig.SHARE_TOKENS, key = "#shareToken")
+    public Optional<SharedFileMetadata> resolve(String shareToken) {
+        return fileRepository.findByShareToken(shareToken).map(SharedFileMetadata::from);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.SHARED_FILES, key = "#fileId")
+    public Optional<SharedFileMetadata> resolveFile(Long fileId) {
+        return fileRepository.findById(fileId).map(SharedFileMetadata::from);
+    }
+
+    /**
+     * Evicts now and again after the surrounding transaction commits, so a concurrent request cannot re-populate
+     * the entry from not-yet-committed state.
+     */
+    public void evict(String shareToken) {
+        evict(CacheConfig.SHARE_TOKENS, shareToken);
+    }
+
+    /**
+     * {@link #evict} for {@link #resolveFile}; needed whenever a file is deleted or its sharing changes.
+     */
+    public void evictFile(Long fileId) {
+        evict(CacheConfig.SHARED_FILES, fileId);
+    }
+
+    private void evict(String cacheName, Object key) {
+        if (key == null) {
+            return;
+        }
+
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+
+        cache.evict(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evict(key);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.InvalidRequestException;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.exception.ShareLinkExpiredException;
+import com.example.demo.model.entity.ShareLink;
+import com.example.demo.repository.ShareLinkRepository;
+import com.example.demo.repository.ShareLinkRepositoryCustom.DownloadDelta;
+import com.example.demo.security.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Share links that carry their own terms: file id, expiry and an optional download limit, signed with the JWT
+ * key ({@link JwtService#generateShareToken}). Nothing about a link is stored when it is issued, and a tampered
+ * or expired link is rejected from the signature alone, before any cache, database or storage access.
+ *
+ * <p>A link also carries a digest of the file's share token at issue time, its share version. Turning sharing off
+ * clears the token and turning it on again issues a new one, so a link only works for the sharing it was issued
+ * under and stays revoked once sharing has been turned off.
+ *
+ * <p>Downloads are counted in memory and flushed as one batch of upserts to {@code share_links} every
+ * {@code share.signed.flush-interval}. A limited link reads its persisted count once per node; after that the
+ * limit is enforced in memory. With several nodes each one only sees the other nodes' downloads as of their last
+ * flush, so a limit can be overshot by the downloads of one flush interval.
+ */
+@Slf4j
+@Service
+public class SignedShareLinkService {
+
+    private final JwtService jwtService;
+    private final ShareLinkRepository shareLinkRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration maxTtl;
+    private final Duration retention;
+    private final Map<String, LinkCounter> counters = new ConcurrentHashMap<>();
+    private final Counter rejectedInvalid;
+    private final Counter rejectedExpired;
+    private final Counter rejectedExhausted;
+
+    public SignedShareLinkService(JwtService jwtService,
+                                  ShareLinkRepository shareLinkRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${share.signed.max-ttl:P30D}") Duration maxTtl,
+                                  @Value("${share.signed.retention:P7D}") Duration retention) {
+        this.jwtService = jwtService;
+        this.shareLinkRepository = shareLinkRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.maxTtl = maxTtl;
+        this.retention = retention;
+        this.rejectedInvalid = rejectedCounter(meterRegistry, "invalid");
+        this.rejectedExpired = rejectedCounter(meterRegistry, "expired");
+        this.rejectedExhausted = rejectedCounter(meterRegistry, "exhausted");
+        Gauge.builder("share.link.signed.pending", counters, map -> map.values().stream()
+                        .mapToLong(counter -> counter.pending.get()).sum())
+                .description("Signed-link downloads counted in memory and not yet flushed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * What a verified token says about its link.
+     */
+    public record SignedShareLink(String linkId, Long fileId, String shareVersion, Instant expiresAt,
+                                  Integer maxDownloads) {
+    }
+
+    /**
+     * @param shareToken the file's current share token; sharing must be on
+     */
+    public SignedShareLink issue(Long fileId, String shareToken, Duration ttl, Integer maxDownloads) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero() || ttl.compareTo(maxTtl) > 0) {
+            throw new InvalidRequestException("Link lifetime must be positive and at most " + maxTtl);
+        }
+        if (maxDownloads != null && maxDownloads < 1) {
+            throw new InvalidRequestException("maxDownloads must be at least 1");
+        }
+        // Whole seconds: that is what the token's exp claim holds
+        Instant expiresAt = Instant.now().plus(ttl).truncatedTo(ChronoUnit.SECONDS);
+        return new SignedShareLink(UUID.randomUUID().toString(), fileId, shareVersion(shareToken), expiresAt,
+                maxDownloads);
+    }
+
+    public String sign(SignedShareLink link) {
+        return jwtService.generateShareToken(link.linkId(), link.fileId(), link.shareVersion(), link.expiresAt(),
+                link.maxDownloads());
+    }
+
+    /**
+     * Whether the link was issued for the file's current sharing, i.e. sharing has not been turned off since.
+     */
+    public boolean isCurrent(SignedShareLink link, String shareToken) {
+        return shareToken != null && link.shareVersion().equals(shareVersion(shareToken));
+    }
+
+    /**
+     * The first 96 bits of the token's SHA-256, enough to tell share tokens apart without putting one in a link.
+     */
+    private static String shareVersion(String shareToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(shareToken.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 12));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    /**
+     * Checks signature and expiry. CPU only.
+     *
+     * @throws ResourceNotFoundException  if the token is not a valid share token
+     * @throws ShareLinkExpiredException if it has expired
+     */
+    public SignedShareLink verify(String token) {
+        try {
+            Claims claims = jwtService.parseShareClaims(token);
+            Long fileId = claims.get("fid", Long.class);
+            String shareVersion = claims.get("sv", String.class);
+            if (claims.getId() == null || fileId == null || shareVersion == null || claims.getExpiration() == null) {
+                throw new JwtException("Incomplete share token");
+            }
+            return new SignedShareLink(claims.getId(), fileId, shareVersion, claims.getExpiration().toInstant(),
+                    claims.get("max", Integer.class));
+        } catch (ExpiredJwtException ex) {
+            rejectedExpired.increment();
+            throw new ShareLinkExpiredException("Share link has expired");
+        } catch (JwtException | IllegalArgumentException ex) {
+            rejectedInvalid.increment();
+            throw new ResourceNotFoundException("Shared file not found");
+        }
+    }
+
+    /**
+     * Counts one download, refusing it once a limited link has used up its downloads.
+     *
+     * @throws ShareLinkExpiredException if the limit has been reached
+     */
+    public void recordDownload(SignedShareLink link) {
+        LinkCounter counter = counters.get(link.linkId());
+        if (counter == null) {
+            // Only limited links need the count so far; a concurrent first request may load it twice, harmlessly
+            long persisted = link.maxDownloads() == null ? 0
+                    : shareLinkRepository.findById(link.linkId()).map(ShareLink::getDownloads).orElse(0L);
+            counter = counters.computeIfAbsent(link.linkId(), id -> new LinkCounter(link, persisted));
+        }
+
+        if (!counter.tryAcquire()) {
+            rejectedExhausted.increment();
+            throw new ShareLinkExpiredException("Share link has reached its download limit");
+        }
+    }
+
+    /**
+     * Writes the downloads counted since the last flush, then forgets expired links that have nothing pending.
+     */
+    @Scheduled(fixedDelayString = "${share.signed.flush-interval:PT10S}")
+    public void flush() {
+        List<DownloadDelta> deltas = new ArrayList<>();
+        List<LinkCounter> flushed = new ArrayList<>();
+        Instant now = Instant.now();
+        counters.forEach((linkId, counter) -> {
+            long pending = counter.pending.getAndSet(0);
+            if (pending > 0) {
+                deltas.add(new DownloadDelta(linkId, counter.link.fileId(),
+                        LocalDateTime.ofInstant(counter.link.expiresAt(), ZoneId.systemDefault()), pending));
+                flushed.add(counter);
+            } else if (counter.link.expiresAt().isBefore(now)) {
+                counters.remove(linkId, counter);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> shareLinkRepository.addDownloads(deltas));
+        } catch (RuntimeException ex) {
+            // Keep the counts for the next attempt
+            for (int i = 0; i < deltas.size(); i++) {
+                flushed.get(i).pending.addAndGet(deltas.get(i).downloads());
+            }
+            log.warn("Could not flush {} share link download counts", deltas.size(), ex);
+        }
+    }
+
+    @Scheduled(cron = "${share.signed.cleanup-cron:0 45 3 * * *}")
+    public void deleteExpired() {
+        LocalDateTime before = LocalDateTime.now().minus(retention);
+        Integer deleted = transactionTemplate.execute(status -> shareLinkRepository.deleteExpiredBefore(before));
+        log.info("Removed {} expired share link counters", deleted);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("share.link.signed.rejected")
+                .description("Signed share-link requests refused before any I/O or at the download limit")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private static final class LinkCounter {
+
+        private final SignedShareLink link;
+        /** Downloads known on this node: the persisted count when first seen plus local ones. */
+        private final AtomicLong used;
+        private final AtomicLong pending = new AtomicLong();
+
+        private LinkCounter(SignedShareLink link, long persisted) {
+            this.link = link;
+            this.used = new AtomicLong(persisted);
+        }
+
+        boolean tryAcquire() {
+            Integer max = link.maxDownloads();
+            long current;
+            do {
+                current = used.get();
+                if (max != null && current >= max) {
+                    return false;
+                }
+            } while (!used.compareAndSet(current, current + 1));
+            pending.incrementAndGet();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.demo.service;
+
+import com.example.demo.model.dto.StorageGcReport;
+import com.example.demo.model.entity.StoredBlob;
+import com.example.demo.repository.FileRepository;
+import com.example.demo.repository.FileRepositoryCustom.RemovedFile;
+import com.example.demo.repository.StoredBlobRepository;
+import com.example.demo.repository.UploadSessionRepository;
+import com.example.demo.storage.BlobStore;
+import com.example.demo.storage.StorageBackend;
+import com.example.demo.storage.StorageObject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reconciles the storage backend with the {@code blobs} table in both directions:
+ * <ul>
+ *     <li>objects with no {@code blobs} row (e.g. stored by an upload whose transaction then failed) are deleted;</li>
+ *     <li>{@code blobs} rows whose bytes are gone are removed together with the {@code files} rows using them.</li>
+ * </ul>
+ * Both sides are read in key order, the backend through its lazy listing and the table in keyset pages, and
+ * merged like a sort-merge join, so memory use is one page regardless of how much is stored. Anything younger
+ * than the grace period is left alone, which covers uploads still in flight.
+ *
+ * <p>Only content-addressed keys (64 hex characters) are considered. Legacy files and derived objects stored
+ * next to blobs are never touched.
+ */
+@Slf4j
+@Service
+public class StorageGarbageCollector {
+
+    private static final Pattern BLOB_KEY = Pattern.compile("[0-9a-f]{64}");
+
+    private final StorageBackend storageBackend;
+    private final StoredBlobRepository storedBlobRepository;
+    private final FileRepository fileRepository;
+    private final UploadSessionRepository uploadSessionRepository;
+    private final StorageQuotaService storageQuotaService;
+    private final ShareTokenResolver shareTokenResolver;
+    private final BlobStore blobStore;
+    private final TransactionTemplate transactionTemplate;
+    // Not synchronized: a run blocks on I/O throughout and would pin a virtual thread to its carrier
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    @Value("${storage.gc.enabled:true}")
+    private boolean enabled;
+
+    @Value("${storage.gc.grace-period:PT24H}")
+    private Duration gracePeriod;
+
+    @Value("${storage.gc.page-size:1000}")
+    private int pageSize;
+
+    @Value("${storage.gc.max-dangling-per-run:1000}")
+    private int maxDanglingPerRun;
+
+    public StorageGarbageCollector(StorageBackend storageBackend,
+                                   StoredBlobRepository storedBlobRepository,
+                                   FileRepository fileRepository,
+                                   UploadSessionRepository uploadSessionRepository,
+                                   StorageQuotaService storageQuotaService,
+                                   ShareTokenResolver shareTokenResolver,
+                                   BlobStore blobStore,
+                                   TransactionTemplate transactionTemplate) {
+        this.storageBackend = storageBackend;
+        this.storedBlobRepository = storedBlobRepository;
+        this.fileRepository = fileRepository;
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.storageQuotaService = storageQuotaService;
+        this.shareTokenResolver = shareTokenResolver;
+        this.blobStore = blobStore;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Scheduled(cron = "${storage.gc.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            run();
+        }
+    }
+
+    public StorageGcReport run() {
+        runLock.lock();
+        try {
+            return collect();
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    private StorageGcReport collect() {
+        StorageGcReport report = new StorageGcReport();
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        LocalDateTime rowCutoff = LocalDateTime.ofInstant(cutoff, ZoneId.systemDefault());
+        List<String> dangling = new ArrayList<>();
+
+        try (Stream<StorageObject> listing = storageBackend.list()) {
+            Iterator<StorageObject> objects = listing.filter(object -> BLOB_KEY.matcher(object.key()).matches()).iterator();
+            BlobPages blobs = new BlobPages();
+
+            StorageObject object = nextOrNull(objects);
+            StoredBlob blob = blobs.next();
+            while (object != null || blob != null) {
+                int order = object == null ? 1 : blob == null ? -1 : object.key().compareTo(blob.getContentHash());
+                if (order < 0) {
+                    report.setScannedObjects(report.getScannedObjects() + 1);
+                    if (object.lastModified().isBefore(cutoff) && deleteOrphan(object.key())) {
+                        report.setOrphanObjectsDeleted(report.getOrphanObjectsDeleted() + 1);
+                    }
+                    object = nextOrNull(objects);
+                } else if (order > 0) {
+                    report.setScannedBlobs(report.getScannedBlobs() + 1);
+                    if (blob.getCreatedAt() == null || blob.getCreatedAt().isBefore(rowCutoff)) {
+                        if (dangling.size() < maxDanglingPerRun) {
+                            dangling.add(blob.getContentHash());
+                        } else {
+                            report.setDanglingRemovalSkipped(true);
+                        }
+                    }
+                    blob = blobs.next();
+                } else {
+                    report.setScannedObjects(report.getScannedObjects() + 1);
+                    report.setScannedBlobs(report.getScannedBlobs() + 1);
+                    object = nextOrNull(objects);
+                    blob = blobs.next();
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            // An incomplete listing would make every unseen blob look dangling
+            log.error("Storage GC aborted while scanning", ex);
+            return report;
+        }
+
+        if (report.isDanglingRemovalSkipped()) {
+            log.error("More than {} blobs have no stored bytes; not removing any. Check the storage backend.",
+                    maxDanglingPerRun);
+        } else {
+            removeDangling(dangling, report);
+        }
+
+        report.setStagingFilesDeleted(cleanStaging(cutoff));
+        log.info("Storage GC finished: {}", report);
+        return report;
+    }
+
+    /**
+     * Deletes an object with no {@code blobs} row, re-checking under the content lock so a concurrent first
+     * upload of the same content cannot lose its bytes.
+     */
+    private boolean deleteOrphan(String key) {
+        Boolean deleted = transactionTemplate.execute(status -> {
+            storedBlobRepository.lockContent(key);
+            if (storedBlobRepository.existsById(key)) {
+                return false;
+            }
+            try {
+                return storageBackend.delete(key);
+            } catch (IOException ex) {
+                log.warn("Could not delete orphaned object {}", key, ex);
+                return false;
+            }
+        });
+        return Boolean.TRUE.equals(deleted);
+    }
+
+    private void removeDangling(List<String> candidates, StorageGcReport report) {
+        List<String> missing = new ArrayList<>();
+        for (String hash : candidates) {
+            try {
+                // The listing is not a snapshot; confirm the bytes are still absent
+                if (storageBackend.stat(hash).isEmpty()) {
+                    missing.add(hash);
+                }
+            } catch (IOException ex) {
+                log.warn("Could not stat blob {}, keeping it", hash, ex);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<RemovedFile> removed = fileRepository.deleteByContentHashes(missing);
+            removed.stream()
+                    .filter(file -> file.fileSize() != null)
+                    .collect(Collectors.groupingBy(RemovedFile::userId, Collectors.summingLong(RemovedFile::fileSize)))
+                    .forEach(storageQuotaService::release);
+            removed.stream().map(RemovedFile::shareToken).filter(Objects::nonNull).forEach(shareTokenResolver::evict);
+            storedBlobRepository.deleteAllByIdInBatch(missing);
+            missing.forEach(blobStore::evictCached);
+
+            report.setDanglingFilesRemoved(removed.size());
+            report.setDanglingBlobsRemoved(missing.size());
+        });
+        log.warn("Removed {} blobs with missing bytes and the {} files referencing them",
+                report.getDanglingBlobsRemoved(), report.getDanglingFilesRemoved());
+    }
+
+    /**
+     * Staged files normally live for one request; old ones are left over from crashes. Files backing a resumable
+     * upload stay until the session is completed, aborted or expires.
+     */
+    private long cleanStaging(Instant cutoff) {
+        long deleted = 0;
+        try (Stream<Path> staged = Files.list(blobStore.stagingDirectory())) {
+            for (Path path : (Iterable<Path>) staged::iterator) {
+                if (Files.getLastModifiedTime(path).toInstant().isBefore(cutoff)
+                        && !uploadSessionRepository.existsByStorageName(path.getFileName().toString())
+                        && Files.deleteIfExists(path)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException ex) {
+            log.warn("Could not clean the staging directory", ex);
+        }
+        return deleted;
+    }
+
+    private static <T> T nextOrNull(Iterator<T> iterator) {
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    /**
+     * Iterates the {@code blobs} table in hash order one keyset page at a time.
+     */
+    private class BlobPages {
+
+        private Iterator<StoredBlob> page = List.<StoredBlob>of().iterator();
+        private String lastHash = "";
+        private boolean exhausted;
+
+        StoredBlob next() {
+            if (!page.hasNext() && !exhausted) {
+                List<StoredBlob> blobs = storedBlobRepository.findPageAfter(lastHash, pageSize);
+                exhausted = blobs.size() < pageSize;
+                page = blobs.iterator();
+            }
+            if (!page.hasNext()) {
+                return null;
+            }
+            StoredBlob blob = page.next();
+            lastHash = blob.getContentHash();
+            return blob;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.QuotaExceededException;
+import com.example.demo.exception.UserNotFoundException;
+import com.example.demo.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+
+/**
+ * Per-user storage quota backed by the {@code users.storage_used} counter. Every check is a single-row lookup
+ * or conditional update; nothing ever sums a user's files on the request path.
+ *
+ * <p>Bytes are charged by logical file size, so deduplicated content still counts for each owner. In-flight
+ * resumable uploads hold their full declared size from init until they complete, are aborted or expire.
+ */
+@Slf4j
+@Service
+public class StorageQuotaService {
+
+    private final UserRepository userRepository;
+    private final long defaultQuota;
+
+    public StorageQuotaService(UserRepository userRepository,
+                               @Value("${storage.quota.default:1GB}") DataSize defaultQuota) {
+        this.userRepository = userRepository;
+        this.defaultQuota = defaultQuota.toBytes();
+    }
+
+    /**
+     * Cheap early rejection before any bytes are accepted. Not a reservation: {@link #reserve} is still the
+     * authoritative check.
+     */
+    @Transactional(readOnly = true)
+    public void checkAvailable(Long userId, long bytes) {
+        List<Object[]> usage = userRepository.findStorageUsage(userId, defaultQuota);
+        if (usage.isEmpty()) {
+            throw new UserNotFoundException("User not found");
+        }
+        long used = (Long) usage.get(0)[0];
+        long quota = (Long) usage.get(0)[1];
+        if (used + bytes > quota) {
+            throw quotaExceeded(bytes, used, quota);
+        }
+    }
+
+    /**
+     * Charges {@code bytes} to the user. Joins the caller's transaction, so a failed upload rolls the charge back.
+     */
+    @Transactional
+    public void reserve(Long userId, long bytes) {
+        if (userRepository.reserveStorage(userId, bytes, defaultQuota) == 0) {
+            checkAvailable(userId, bytes);
+            // Raced with another upload between the update and the lookup
+            throw new QuotaExceededException("Storage quota exceeded");
+        }
+    }
+
+    @Transactional
+    public void release(Long userId, long bytes) {
+        if (bytes > 0) {
+            userRepository.releaseStorage(userId, bytes);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${storage.quota.reconcile-interval:PT1H}",
+            initialDelayString = "${storage.quota.reconcile-initial-delay:PT5M}")
+    @Transactional
+    public void reconcile() {
+        int corrected = userRepository.reconcileStorageUsage();
+        if (corrected > 0) {
+            log.warn("Corrected storage usage counters for {} user(s)", corrected);
+        }
+    }
+
+    private static QuotaExceededException quotaExceeded(long bytes, long used, long quota) {
+        return new QuotaExceededException("Storage quota exceeded: " + DataSize.ofBytes(bytes).toMegabytes()
+                + "MB requested, " + DataSize.ofBytes(Math.max(quota - used, 0)).toMegabytes() + "MB available");
+    }
+}
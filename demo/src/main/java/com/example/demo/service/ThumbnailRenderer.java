@@ -0,0 +1,133 @@
+package com.example.demo.service;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Reads basic metadata and renders JPEG thumbnails with the JDK's image I/O and PDFBox, both pure Java.
+ * Images are decoded with source subsampling, so a large photo is never expanded to full resolution just to be
+ * shrunk; images above {@code content.processing.max-image-pixels} only get their dimensions recorded.
+ */
+@Component
+public class ThumbnailRenderer {
+
+    private static final float JPEG_QUALITY = 0.8f;
+
+    private final long maxImagePixels;
+
+    public ThumbnailRenderer(@Value("${content.processing.max-image-pixels:50000000}") long maxImagePixels) {
+        this.maxImagePixels = maxImagePixels;
+        // Keep image I/O buffering in memory instead of temporary files
+        ImageIO.setUseCache(false);
+    }
+
+    /**
+     * @param thumbnail JPEG bytes fitting the requested box, {@code null} if none could be rendered
+     */
+    public record Rendition(Integer width, Integer height, Integer pageCount, byte[] thumbnail) {
+    }
+
+    /**
+     * @return {@code null} if no installed reader understands the content
+     */
+    public Rendition renderImage(InputStream content, int size) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(content)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxImagePixels) {
+                    return new Rendition(width, height, null, null);
+                }
+
+                // Decode at no less than twice the target size, then scale smoothly
+                int step = Math.max(1, Math.max(width, height) / (size * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage image = reader.read(0, param);
+                return new Rendition(width, height, null, toJpeg(image, size));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Renders the first page of a PDF. Takes a file so PDFBox can read it randomly instead of buffering it whole.
+     */
+    public Rendition renderPdf(Path pdf, int size) throws IOException {
+        try (PDDocument document = Loader.loadPDF(pdf.toFile())) {
+            int pages = document.getNumberOfPages();
+            if (pages == 0) {
+                return new Rendition(null, null, 0, null);
+            }
+            PDRectangle box = document.getPage(0).getCropBox();
+            // Scale 1 renders at 72 dpi, i.e. one pixel per point
+            float scale = size / Math.max(box.getWidth(), box.getHeight());
+            BufferedImage image = new PDFRenderer(document).renderImage(0, scale, ImageType.RGB);
+            return new Rendition(null, null, pages, toJpeg(image, size));
+        }
+    }
+
+    /**
+     * Scales {@code image} to fit a {@code size} x {@code size} box, flattening transparency onto white.
+     */
+    public byte[] toJpeg(BufferedImage image, int size) throws IOException {
+        double ratio = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(thumbnail, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.demo.service;
 
 import com.example.demo.model.dto.UserDTO;
+import com.example.demo.model.dto.UserStorageSummaryDTO;
 import com.example.demo.model.entity.User;
 import com.example.demo.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,6 +39,10 @@ public class UserService {
                 .collect(Collectors.toList());
     }
 
+    public List<UserStorageSummaryDTO> getUserStorageSummaries() {
+        return userRepository.findStorageSummaries();
+    }
+
     private UserDTO convertToDTO(User user) {
         UserDTO dto = new UserDTO();
         dto.setUserId(user.getId());
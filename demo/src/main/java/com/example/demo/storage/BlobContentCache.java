@@ -0,0 +1,133 @@
+package com.example.demo.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the stored bytes of small, frequently downloaded blobs in direct (off-heap) buffers, so a viral share
+ * link is served from memory without touching the disk and without adding to the heap the GC has to trace.
+ *
+ * <p>Two layers keep one-off downloads out:
+ * <ul>
+ *     <li>a blob is only loaded after {@code min-hits} requests within the doorkeeper window, so a single
+ *     download never costs a buffer allocation;</li>
+ *     <li>the cache is weighted by bytes and evicts with Caffeine's W-TinyLFU, which admits a new entry only if
+ *     it has been requested more often than the entry it would evict.</li>
+ * </ul>
+ * Blobs above {@code max-file-size} are never cached; by default that is the sendfile threshold, so large files
+ * keep the zero-copy path. Blob content never changes for a hash, so entries only need removing to free memory.
+ * Budget {@code -XX:MaxDirectMemorySize} for {@code max-size} on top of what the connector uses.
+ */
+@Slf4j
+@Component
+public class BlobContentCache {
+
+    private final boolean enabled;
+    private final long maxFileSize;
+    private final int minHits;
+    private final Cache<String, ByteBuffer> content;
+    private final Cache<String, AtomicInteger> doorkeeper;
+    private final Set<String> loading = ConcurrentHashMap.newKeySet();
+
+    public BlobContentCache(@Value("${storage.content-cache.enabled:true}") boolean enabled,
+                            @Value("${storage.content-cache.max-size:256MB}") DataSize maxSize,
+                            @Value("${storage.content-cache.max-file-size:1MB}") DataSize maxFileSize,
+                            @Value("${storage.content-cache.min-hits:2}") int minHits,
+                            @Value("${storage.content-cache.doorkeeper-window:PT10M}") Duration doorkeeperWindow,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxFileSize = maxFileSize.toBytes();
+        this.minHits = minHits;
+        this.content = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String hash, ByteBuffer buffer) -> buffer.capacity())
+                .recordStats()
+                .build();
+        this.doorkeeper = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(doorkeeperWindow)
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, content, "blobContent");
+        Gauge.builder("cache.blob.content.bytes", content,
+                        cache -> cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+                .description("Off-heap bytes held by the blob content cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached content, loading it if the blob has become hot; empty if it is not (yet) cached.
+     *
+     * @param storedSize size of the bytes as stored, i.e. after any compression
+     */
+    public Optional<CachedBlobResource> lookup(String contentHash, long storedSize, StorageBackend backend) {
+        if (!enabled || storedSize <= 0 || storedSize > maxFileSize) {
+            return Optional.empty();
+        }
+
+        ByteBuffer cached = content.getIfPresent(contentHash);
+        if (cached == null) {
+            AtomicInteger hits = doorkeeper.get(contentHash, hash -> new AtomicInteger());
+            if (hits.incrementAndGet() < minHits) {
+                return Optional.empty();
+            }
+            // One request loads the blob; concurrent misses are served from storage meanwhile rather than waiting.
+            // The read happens outside the cache: inside a Caffeine compute it would hold a map bin lock (blocking
+            // other keys) and pin the virtual thread's carrier for the whole storage read.
+            if (!loading.add(contentHash)) {
+                return Optional.empty();
+            }
+            try {
+                cached = load(contentHash, storedSize, backend);
+                content.put(contentHash, cached);
+            } catch (IOException ex) {
+                log.warn("Could not cache blob {}, serving it from storage", contentHash, ex);
+                return Optional.empty();
+            } finally {
+                loading.remove(contentHash);
+            }
+            doorkeeper.invalidate(contentHash);
+        }
+        return Optional.of(new CachedBlobResource(contentHash, cached));
+    }
+
+    public void evict(String contentHash) {
+        if (contentHash != null) {
+            content.invalidate(contentHash);
+            doorkeeper.invalidate(contentHash);
+        }
+    }
+
+    private static ByteBuffer load(String contentHash, long storedSize, StorageBackend backend) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) storedSize);
+        try (InputStream in = backend.get(contentHash);
+             ReadableByteChannel channel = Channels.newChannel(in)) {
+            while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                // keep reading
+            }
+        }
+        if (buffer.hasRemaining()) {
+            throw new IOException("Blob " + contentHash + " is shorter than " + storedSize + " bytes");
+        }
+        return buffer.flip().asReadOnlyBuffer();
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.demo.storage;
+
+import com.example.demo.exception.FileStorageException;
+import com.example.demo.model.entity.StoredBlob;
+import com.example.demo.repository.StoredBlobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Content-addressed storage: every distinct content is kept once under its SHA-256 and shared by all
+ * {@code File} rows that carry the same {@code content_hash}. The {@code blobs} table holds the reference
+ * count; the bytes are removed only when the last reference is released.
+ *
+ * <p>The bytes themselves live in the configured {@link StorageBackend}. Uploads are first staged in a private
+ * directory under {@code file.upload-dir}, so with a local backend promoting a staged file to its final name is a
+ * rename on the same file system rather than another copy.
+ *
+ * <p>Text-like content is compressed when its first copy is stored (see {@link CompressionPolicy}). The hash
+ * always covers the original bytes, so deduplication and ETags do not depend on the encoding.
+ */
+@Slf4j
+@Component
+public class BlobStore {
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final StoredBlobRepository storedBlobRepository;
+    private final StorageBackend storageBackend;
+    private final CompressionPolicy compressionPolicy;
+    private final DeletionQueue deletionQueue;
+    private final BlobContentCache contentCache;
+    private final Path stagingLocation;
+
+    public BlobStore(StoredBlobRepository storedBlobRepository,
+                     StorageBackend storageBackend,
+                     CompressionPolicy compressionPolicy,
+                     DeletionQueue deletionQueue,
+                     BlobContentCache contentCache,
+                     @Value("${file.upload-dir}") String uploadDir) {
+        this.storedBlobRepository = storedBlobRepository;
+        this.storageBackend = storageBackend;
+        this.compressionPolicy = compressionPolicy;
+        this.deletionQueue = deletionQueue;
+        this.contentCache = contentCache;
+        this.stagingLocation = Paths.get(uploadDir).toAbsolutePath().normalize().resolve(".staging");
+
+        try {
+            Files.createDirectories(this.stagingLocation);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not create staging directory", ex);
+        }
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not available", ex);
+        }
+    }
+
+    public static String toHex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public Path newStagingFile() {
+        try {
+            return Files.createFile(stagingLocation.resolve(UUID.randomUUID().toString()));
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not create staging file", ex);
+        }
+    }
+
+    public Path stagingDirectory() {
+        return stagingLocation;
+    }
+
+    public Path stagingPath(String stagingName) {
+        return stagingLocation.resolve(stagingName);
+    }
+
+    /**
+     * Copies a multipart upload into the staging area, hashing it on the way, so every byte is read once. Letting
+     * the container rename its temp file instead only works when that file is on disk and on the same file
+     * system, and the hash would still need a second full read.
+     */
+    public StagedBlob stage(MultipartFile file) {
+        Path staged = stagingLocation.resolve(UUID.randomUUID().toString());
+        MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            long size = Files.copy(in, staged);
+            return new StagedBlob(staged, toHex(digest), size);
+        } catch (IOException ex) {
+            discard(staged);
+            throw new FileStorageException("Could not stage file " + file.getOriginalFilename(), ex);
+        }
+    }
+
+    public String hash(Path path) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest);
+    }
+
+    /**
+     * Takes a reference on the staged content. The first reference promotes the staged file to the blob
+     * location, compressed if the policy picks a codec for {@code contentType}; any later one just drops the
+     * staged copy and reuses the existing encoding. Must run inside the transaction that saves the referencing
+     * {@code File} row.
+     */
+    @Transactional
+    public CommittedBlob commit(StagedBlob staged, String contentType) {
+        String contentHash = staged.contentHash();
+        // A pending tombstone for the same content must not delete the bytes this upload is about to store
+        storedBlobRepository.lockContent(contentHash);
+        long references = storedBlobRepository.acquire(contentHash, staged.size());
+
+        try {
+            if (references > 1) {
+                Files.deleteIfExists(staged.path());
+                StoredBlob blob = storedBlobRepository.findById(contentHash)
+                        .orElseThrow(() -> new FileStorageException("Blob disappeared: " + contentHash));
+                return new CommittedBlob(contentHash, ContentCodec.fromEncoding(blob.getContentEncoding()),
+                        blob.getStoredSize() != null ? blob.getStoredSize() : staged.size(), false);
+            }
+
+            ContentCodec codec = compressionPolicy.choose(contentType, staged.size());
+            Path source = staged.path();
+            long storedSize = staged.size();
+
+            if (codec != ContentCodec.IDENTITY) {
+                Path encoded = encode(staged.path(), codec);
+                long encodedSize = Files.size(encoded);
+                if (compressionPolicy.worthKeeping(staged.size(), encodedSize)) {
+                    discard(staged.path());
+                    source = encoded;
+                    storedSize = encodedSize;
+                } else {
+                    discard(encoded);
+                    codec = ContentCodec.IDENTITY;
+                }
+            }
+
+            storageBackend.putFile(contentHash, source);
+            if (codec != ContentCodec.IDENTITY) {
+                storedBlobRepository.updateEncoding(contentHash, codec.encoding(), storedSize);
+            }
+            return new CommittedBlob(contentHash, codec, storedSize, true);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not store blob " + contentHash, ex);
+        }
+    }
+
+    /**
+     * Keeps a second name for a staged file until the current transaction ends, so a rollback after {@link #commit}
+     * consumed the file puts it back. The second name is a hard link, or a copy where links are not supported.
+     */
+    public void restoreOnRollback(Path staged) {
+        Path kept = staged.resolveSibling(staged.getFileName() + ".keep");
+        try {
+            Files.deleteIfExists(kept);
+            try {
+                Files.createLink(kept, staged);
+            } catch (UnsupportedOperationException | FileSystemException ex) {
+                Files.copy(staged, kept);
+            }
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not keep staged file " + staged, ex);
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        Files.deleteIfExists(kept);
+                    } else {
+                        Files.move(kept, staged, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } catch (IOException ex) {
+                    log.warn("Could not clean up kept staged file {}", kept, ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops one reference. Once nothing points at the blob its bytes are queued for deletion after commit.
+     */
+    @Transactional
+    public void release(String contentHash) {
+        storedBlobRepository.release(contentHash);
+
+        if (storedBlobRepository.deleteIfUnreferenced(contentHash) > 0) {
+            deletionQueue.deleteBlobAfterCommit(contentHash);
+            contentCache.evict(contentHash);
+        }
+    }
+
+    /**
+     * Batched {@link #release}: {@code referencesByHash} maps each blob to the number of references dropped.
+     */
+    @Transactional
+    public void releaseAll(Map<String, Long> referencesByHash) {
+        storedBlobRepository.releaseAll(referencesByHash).forEach(contentHash -> {
+            deletionQueue.deleteBlobAfterCommit(contentHash);
+            contentCache.evict(contentHash);
+        });
+    }
+
+    /**
+     * Drops the blob from the {@link BlobContentCache}, e.g. when the file that made it hot stops being shared.
+     */
+    public void evictCached(String contentHash) {
+        contentCache.evict(contentHash);
+    }
+
+    /**
+     * Opens the stored bytes of a blob as they are, still encoded if it was stored compressed. Hot blobs are
+     * served from the {@link BlobContentCache}; otherwise local backends hand out a file resource so the
+     * zero-copy path can use it.
+     */
+    public Resource open(String contentHash, long storedSize) {
+        Optional<CachedBlobResource> cached = contentCache.lookup(contentHash, storedSize, storageBackend);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        return storageBackend.localPath(contentHash)
+                .<Resource>map(FileSystemResource::new)
+                .orElseGet(() -> new StorageResource(storageBackend, contentHash, storedSize));
+    }
+
+    /**
+     * Opens a blob as its original content, decoding on the fly when it is stored compressed.
+     */
+    public Resource openDecoded(String contentHash, long size, ContentCodec codec, long storedSize) {
+        if (codec == ContentCodec.IDENTITY) {
+            return open(contentHash, size);
+        }
+        return new DecodingResource(open(contentHash, storedSize), codec, size);
+    }
+
+    private Path encode(Path source, ContentCodec codec) throws IOException {
+        Path encoded = newStagingFile();
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = codec.encode(Files.newOutputStream(encoded))) {
+            in.transferTo(out);
+        } catch (IOException ex) {
+            discard(encoded);
+            throw ex;
+        }
+        return encoded;
+    }
+
+    public void discard(Path staged) {
+        try {
+            Files.deleteIfExists(staged);
+        } catch (IOException ex) {
+            log.warn("Could not remove staged file {}", staged, ex);
+        }
+    }
+
+    public record StagedBlob(Path path, String contentHash, long size) {
+    }
+
+    /**
+     * @param created whether this upload stored the first copy of the content
+     */
+    public record CommittedBlob(String contentHash, ContentCodec codec, long storedSize, boolean created) {
+    }
+}
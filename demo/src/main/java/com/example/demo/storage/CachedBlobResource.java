@@ -0,0 +1,92 @@
+package com.example.demo.storage;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Stored blob bytes served from {@link BlobContentCache}. Every stream reads its own view of the shared,
+ * read-only buffer, so concurrent downloads need no locking and no copy of the content.
+ */
+public class CachedBlobResource extends AbstractResource {
+
+    private final String contentHash;
+    private final ByteBuffer content;
+
+    CachedBlobResource(String contentHash, ByteBuffer content) {
+        this.contentHash = contentHash;
+        this.content = content;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new BufferInputStream(content.duplicate());
+    }
+
+    @Override
+    public ReadableByteChannel readableChannel() {
+        return Channels.newChannel(getInputStream());
+    }
+
+    @Override
+    public long contentLength() {
+        return content.capacity();
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public String getFilename() {
+        return contentHash;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Cached blob [" + contentHash + "]";
+    }
+
+    private static final class BufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+
+/**
+ * Decides per content type whether a new blob is stored compressed. Only text-like types are considered;
+ * images, archives and media are already compressed and would just cost CPU.
+ */
+@Component
+public class CompressionPolicy {
+
+    private final boolean enabled;
+    private final List<MimeType> mimeTypes;
+    private final long minSize;
+    private final int minSavingsPercent;
+
+    public CompressionPolicy(@Value("${storage.compression.enabled:true}") boolean enabled,
+                             @Value("${storage.compression.mime-types:text/*,application/json,application/xml,application/javascript}") String mimeTypes,
+                             @Value("${storage.compression.min-size:1KB}") DataSize minSize,
+                             @Value("${storage.compression.min-savings-percent:10}") int minSavingsPercent) {
+        this.enabled = enabled;
+        this.mimeTypes = MimeTypeUtils.parseMimeTypes(mimeTypes);
+        this.minSize = minSize.toBytes();
+        this.minSavingsPercent = minSavingsPercent;
+    }
+
+    public ContentCodec choose(String contentType, long size) {
+        if (!enabled || contentType == null || size < minSize) {
+            return ContentCodec.IDENTITY;
+        }
+        try {
+            MimeType type = MimeTypeUtils.parseMimeType(contentType);
+            return mimeTypes.stream().anyMatch(candidate -> candidate.includes(type))
+                    ? ContentCodec.GZIP
+                    : ContentCodec.IDENTITY;
+        } catch (InvalidMimeTypeException ex) {
+            return ContentCodec.IDENTITY;
+        }
+    }
+
+    /**
+     * Whether the encoded copy saves enough to be worth decoding on every read.
+     */
+    public boolean worthKeeping(long originalSize, long encodedSize) {
+        return encodedSize <= originalSize * (100 - minSavingsPercent) / 100;
+    }
+}
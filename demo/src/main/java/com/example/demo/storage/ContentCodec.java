@@ -0,0 +1,69 @@
+package com.example.demo.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * How a blob is encoded at rest. The token is the HTTP content-coding, so a stored blob can be sent to a client
+ * that accepts it without being decoded.
+ */
+public enum ContentCodec {
+
+    IDENTITY(null) {
+        @Override
+        public OutputStream encode(OutputStream out) {
+            return out;
+        }
+
+        @Override
+        public InputStream decode(InputStream in) {
+            return in;
+        }
+    },
+
+    GZIP("gzip") {
+        @Override
+        public OutputStream encode(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+
+        @Override
+        public InputStream decode(InputStream in) throws IOException {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String encoding;
+
+    ContentCodec(String encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * @return the HTTP content-coding, {@code null} for identity
+     */
+    public String encoding() {
+        return encoding;
+    }
+
+    public abstract OutputStream encode(OutputStream out) throws IOException;
+
+    public abstract InputStream decode(InputStream in) throws IOException;
+
+    public static ContentCodec fromEncoding(String encoding) {
+        if (encoding == null) {
+            return IDENTITY;
+        }
+        for (ContentCodec codec : values()) {
+            if (encoding.equals(codec.encoding)) {
+                return codec;
+            }
+        }
+        throw new IllegalArgumentException("Unknown content encoding: " + encoding);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.storage;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The decoded view of a compressed blob. Reads stream through the codec, so the content is never inflated in
+ * memory or on disk; {@link #contentLength()} reports the original size.
+ */
+public class DecodingResource extends AbstractResource {
+
+    private final Resource encoded;
+    private final ContentCodec codec;
+    private final long decodedSize;
+
+    public DecodingResource(Resource encoded, ContentCodec codec, long decodedSize) {
+        this.encoded = encoded;
+        this.codec = codec;
+        this.decodedSize = decodedSize;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return codec.decode(encoded.getInputStream());
+    }
+
+    @Override
+    public long contentLength() {
+        return decodedSize;
+    }
+
+    @Override
+    public boolean exists() {
+        return encoded.exists();
+    }
+
+    @Override
+    public String getFilename() {
+        return encoded.getFilename();
+    }
+
+    @Override
+    public String getDescription() {
+        return codec.encoding() + "-decoded " + encoded.getDescription();
+    }
+}
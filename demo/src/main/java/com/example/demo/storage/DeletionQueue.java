@@ -0,0 +1,231 @@
+package com.example.demo.storage;
+
+import com.example.demo.model.entity.StorageTombstone;
+import com.example.demo.repository.StorageTombstoneRepository;
+import com.example.demo.repository.StoredBlobRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Removes stored bytes in the background once the database no longer references them. Each removal is first
+ * written as a {@link StorageTombstone} in the transaction that drops the reference, so it commits or rolls back
+ * with that change and survives restarts. After commit a worker is woken to carry it out straight away; a
+ * periodic sweep picks up everything else, retrying failures with exponential backoff. Each row's deletion runs in a
+ * transaction of its own while the batch keeps the claimed rows locked, so one that keeps failing is rescheduled
+ * without holding up the rest of its batch.
+ */
+@Slf4j
+@Component
+public class DeletionQueue {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final StorageBackend storageBackend;
+    private final StoredBlobRepository storedBlobRepository;
+    private final StorageTombstoneRepository tombstoneRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate rowTransaction;
+    private final int batchSize;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "storage-deletion");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+    private final AtomicLong pending = new AtomicLong();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failedAttempts = new LongAdder();
+
+    public DeletionQueue(StorageBackend storageBackend,
+                         StoredBlobRepository storedBlobRepository,
+                         StorageTombstoneRepository tombstoneRepository,
+                         TransactionTemplate transactionTemplate,
+                         @Value("${storage.deletion.batch-size:100}") int batchSize,
+                         @Value("${storage.deletion.initial-backoff:PT1S}") Duration initialBackoff,
+                         @Value("${storage.deletion.max-backoff:PT1H}") Duration maxBackoff) {
+        this.storageBackend = storageBackend;
+        this.storedBlobRepository = storedBlobRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.rowTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.rowTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * Deletes a blob's bytes and its derived objects after commit, unless by then the content has been uploaded
+     * again and has a {@code blobs} row.
+     */
+    public void deleteBlobAfterCommit(String contentHash) {
+        record(StorageTombstone.Kind.BLOB, contentHash);
+    }
+
+    /**
+     * Deletes a pre-content-addressing file from the upload directory after commit.
+     */
+    public void deleteLocalFileAfterCommit(Path path) {
+        record(StorageTombstone.Kind.LOCAL_FILE, path.toAbsolutePath().toString());
+    }
+
+    /**
+     * Tombstones left after the last sweep. Kept as a number so reading it (e.g. by a metrics scrape) never
+     * touches the database.
+     */
+    public long pending() {
+        return pending.get();
+    }
+
+    public long completed() {
+        return completed.sum();
+    }
+
+    public long failedAttempts() {
+        return failedAttempts.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${storage.deletion.sweep-interval:PT1M}")
+    public void sweep() {
+        drain();
+        try {
+            pending.set(tombstoneRepository.count());
+        } catch (RuntimeException ex) {
+            log.warn("Could not count pending tombstones", ex);
+        }
+    }
+
+    private void record(StorageTombstone.Kind kind, String key) {
+        StorageTombstone tombstone = new StorageTombstone();
+        tombstone.setKind(kind);
+        tombstone.setStorageKey(key);
+        tombstoneRepository.save(tombstone);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    requestDrain();
+                }
+            });
+        } else {
+            requestDrain();
+        }
+    }
+
+    /**
+     * Coalesces wake-ups: one pending drain covers every tombstone committed before it runs.
+     */
+    private void requestDrain() {
+        if (drainRequested.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    drainRequested.set(false);
+                    drain();
+                });
+            } catch (RejectedExecutionException ex) {
+                drainRequested.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            Integer processed;
+            do {
+                processed = transactionTemplate.execute(status -> processBatch());
+            } while (processed != null && processed == batchSize);
+        } catch (RuntimeException ex) {
+            log.warn("Deletion sweep failed, tombstones stay queued", ex);
+        }
+    }
+
+    private int processBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<StorageTombstone> due = tombstoneRepository.claimDue(now, batchSize);
+
+        for (StorageTombstone tombstone : due) {
+            try {
+                // Its own transaction (JPA has no savepoints): a failing row is rolled back alone and rescheduled
+                // with backoff, so it cannot roll back the rest of the batch or block every later sweep. It only
+                // touches blobs, never the tombstone row the batch holds locked
+                rowTransaction.executeWithoutResult(status -> {
+                    try {
+                        execute(tombstone);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                tombstoneRepository.delete(tombstone);
+                completed.increment();
+            } catch (RuntimeException ex) {
+                reschedule(tombstone, now, ex instanceof UncheckedIOException io ? io.getCause() : ex);
+            }
+        }
+        return due.size();
+    }
+
+    private void reschedule(StorageTombstone tombstone, LocalDateTime now, Exception cause) {
+        failedAttempts.increment();
+        int attempts = tombstone.getAttempts() + 1;
+        tombstone.setAttempts(attempts);
+        tombstone.setNextAttemptAt(now.plus(backoff(attempts)));
+        String message = String.valueOf(cause.getMessage());
+        tombstone.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        log.warn("Could not delete {} {} (attempt {}), retrying at {}",
+                tombstone.getKind(), tombstone.getStorageKey(), attempts, tombstone.getNextAttemptAt(), cause);
+    }
+
+    private void execute(StorageTombstone tombstone) throws IOException {
+        switch (tombstone.getKind()) {
+            case BLOB -> {
+                String contentHash = tombstone.getStorageKey();
+                // Holds off a concurrent first upload of the same content until this transaction ends
+                storedBlobRepository.lockContent(contentHash);
+                if (storedBlobRepository.existsById(contentHash)) {
+                    log.debug("Blob {} was referenced again, keeping it", contentHash);
+                    return;
+                }
+                storageBackend.delete(contentHash);
+                for (String derivedKey : DerivedObjects.keys(contentHash)) {
+                    storageBackend.delete(derivedKey);
+                }
+            }
+            case LOCAL_FILE -> Files.deleteIfExists(Path.of(tombstone.getStorageKey()));
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.storage;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keys of objects generated from a blob (thumbnails) and stored next to it as {@code <hash>.<suffix>}. They share
+ * the blob's lifetime: {@link DeletionQueue} removes them with the blob's bytes.
+ */
+public final class DerivedObjects {
+
+    /** Thumbnail bounding boxes, in pixels, ascending. */
+    public static final int[] THUMBNAIL_SIZES = {64, 128, 256, 512};
+    /** Rendered by the post-upload pipeline; smaller sizes are scaled down from it. */
+    public static final int DEFAULT_THUMBNAIL_SIZE = 256;
+
+    private DerivedObjects() {
+    }
+
+    public static String thumbnailKey(String contentHash, int size) {
+        return contentHash + ".t" + size + ".jpg";
+    }
+
+    /**
+     * The smallest thumbnail size that covers {@code requested}, or the largest one.
+     */
+    public static int thumbnailBucket(int requested) {
+        for (int size : THUMBNAIL_SIZES) {
+            if (size >= requested) {
+                return size;
+            }
+        }
+        return THUMBNAIL_SIZES[THUMBNAIL_SIZES.length - 1];
+    }
+
+    public static List<String> keys(String contentHash) {
+        return Arrays.stream(THUMBNAIL_SIZES).mapToObj(size -> thumbnailKey(contentHash, size)).toList();
+    }
+}
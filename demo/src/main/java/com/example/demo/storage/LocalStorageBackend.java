@@ -0,0 +1,126 @@
+package com.example.demo.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Keeps every object as a file directly under one directory. This is the original layout of {@code file.upload-dir},
+ * kept for small installations; listing it for garbage collection sorts the whole directory in memory.
+ */
+public class LocalStorageBackend implements StorageBackend {
+
+    protected final Path root;
+
+    public LocalStorageBackend(Path root) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        Files.createDirectories(this.root);
+    }
+
+    @Override
+    public void put(String key, InputStream content, long size) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+
+        // Write next to the target and rename, so readers never observe a half-written object
+        Path temp = target.resolveSibling("." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.copy(content, temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void putFile(String key, Path source) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        // rename(2) does nothing when both names already link to the same file, as after a rolled-back commit
+        // restored the staged file (BlobStore#restoreOnRollback)
+        Files.deleteIfExists(source);
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public InputStream getRange(String key, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        channel.position(offset);
+        InputStream in = Channels.newInputStream(channel);
+        return length < 0 ? in : new BoundedInputStream(in, length);
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Optional<StorageObject> stat(String key) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(resolve(key), BasicFileAttributes.class);
+            return Optional.of(new StorageObject(key, attributes.size(), attributes.lastModifiedTime().toInstant()));
+        } catch (NoSuchFileException ex) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Lists the regular, non-hidden files under the root. A flat directory has no inherent order, so its names
+     * are sorted in memory; that is why {@link ShardedLocalStorageBackend} is the default local layout.
+     */
+    @Override
+    public Stream<StorageObject> list() throws IOException {
+        return listDirectory(root).filter(Files::isRegularFile).map(LocalStorageBackend::toStorageObject);
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.of(resolve(key));
+    }
+
+    /**
+     * The visible entries of one directory, sorted by name.
+     */
+    protected static Stream<Path> listDirectory(Path directory) throws IOException {
+        Stream<Path> entries = Files.list(directory);
+        return entries
+                .filter(path -> !path.getFileName().toString().startsWith("."))
+                .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                .onClose(entries::close);
+    }
+
+    protected static StorageObject toStorageObject(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new StorageObject(path.getFileName().toString(), attributes.size(),
+                    attributes.lastModifiedTime().toInstant());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    protected Path resolve(String key) {
+        if (key.isEmpty() || key.startsWith(".") || key.contains("/") || key.contains("\\")) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        return root.resolve(key);
+    }
+}
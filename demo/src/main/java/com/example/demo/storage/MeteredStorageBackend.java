@@ -0,0 +1,122 @@
+package com.example.demo.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Times every {@link StorageBackend} call as {@code storage.operations}, tagged with the backend, the operation
+ * and its outcome. Reads are timed until the stream is open (time to first byte); the transfer itself shows up in
+ * the {@code transfer.*} metrics. The timers are registered up front, so a call costs no registry lookup.
+ */
+public class MeteredStorageBackend implements StorageBackend {
+
+    private final StorageBackend delegate;
+    private final OperationTimers put;
+    private final OperationTimers putFile;
+    private final OperationTimers get;
+    private final OperationTimers getRange;
+    private final OperationTimers delete;
+    private final OperationTimers stat;
+    private final OperationTimers list;
+
+    public MeteredStorageBackend(StorageBackend delegate, MeterRegistry meterRegistry, String backend) {
+        this.delegate = delegate;
+        this.put = new OperationTimers(meterRegistry, backend, "put");
+        this.putFile = new OperationTimers(meterRegistry, backend, "put_file");
+        this.get = new OperationTimers(meterRegistry, backend, "get");
+        this.getRange = new OperationTimers(meterRegistry, backend, "get_range");
+        this.delete = new OperationTimers(meterRegistry, backend, "delete");
+        this.stat = new OperationTimers(meterRegistry, backend, "stat");
+        this.list = new OperationTimers(meterRegistry, backend, "list");
+    }
+
+    @Override
+    public void put(String key, InputStream content, long size) throws IOException {
+        time(put, () -> {
+            delegate.put(key, content, size);
+            return null;
+        });
+    }
+
+    @Override
+    public void putFile(String key, Path source) throws IOException {
+        time(putFile, () -> {
+            delegate.putFile(key, source);
+            return null;
+        });
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return time(get, () -> delegate.get(key));
+    }
+
+    @Override
+    public InputStream getRange(String key, long offset, long length) throws IOException {
+        return time(getRange, () -> delegate.getRange(key, offset, length));
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return time(delete, () -> delegate.delete(key));
+    }
+
+    @Override
+    public Optional<StorageObject> stat(String key) throws IOException {
+        return time(stat, () -> delegate.stat(key));
+    }
+
+    @Override
+    public Stream<StorageObject> list() throws IOException {
+        return time(list, delegate::list);
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return delegate.localPath(key);
+    }
+
+    private static <T> T time(OperationTimers timers, StorageCall<T> call) throws IOException {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            T result = call.run();
+            succeeded = true;
+            return result;
+        } finally {
+            (succeeded ? timers.success : timers.error).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static final class OperationTimers {
+
+        private final Timer success;
+        private final Timer error;
+
+        OperationTimers(MeterRegistry meterRegistry, String backend, String operation) {
+            this.success = timer(meterRegistry, backend, operation, "success");
+            this.error = timer(meterRegistry, backend, operation, "error");
+        }
+
+        private static Timer timer(MeterRegistry meterRegistry, String backend, String operation, String outcome) {
+            return Timer.builder("storage.operations")
+                    .description("Latency of storage backend calls")
+                    .tag("backend", backend)
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+
+    @FunctionalInterface
+    private interface StorageCall<T> {
+        T run() throws IOException;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.demo.storage;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Stores objects in an S3-compatible bucket (AWS S3, MinIO, Ceph RGW, ...). Range reads map onto the
+ * {@code Range} header of GetObject, so partial downloads never fetch more than they send.
+ */
+public class S3StorageBackend implements StorageBackend {
+
+    private final S3Client s3;
+    private final String bucket;
+    private final String prefix;
+
+    public S3StorageBackend(S3Client s3, String bucket, String prefix) {
+        this.s3 = s3;
+        this.bucket = bucket;
+        this.prefix = prefix == null ? "" : prefix;
+    }
+
+    @Override
+    public void put(String key, InputStream content, long size) throws IOException {
+        try {
+            s3.putObject(PutObjectRequest.builder().bucket(bucket).key(objectKey(key)).contentLength(size).build(),
+                    RequestBody.fromInputStream(content, size));
+        } catch (S3Exception ex) {
+            throw new IOException("Could not upload " + key, ex);
+        }
+    }
+
+    @Override
+    public void putFile(String key, Path source) throws IOException {
+        try {
+            s3.putObject(PutObjectRequest.builder().bucket(bucket).key(objectKey(key)).build(),
+                    RequestBody.fromFile(source));
+        } catch (S3Exception ex) {
+            throw new IOException("Could not upload " + key, ex);
+        }
+        Files.deleteIfExists(source);
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return getObject(GetObjectRequest.builder().bucket(bucket).key(objectKey(key)).build(), key);
+    }
+
+    @Override
+    public InputStream getRange(String key, long offset, long length) throws IOException {
+        String range = length < 0
+                ? "bytes=" + offset + "-"
+                : "bytes=" + offset + "-" + (offset + length - 1);
+        return getObject(GetObjectRequest.builder().bucket(bucket).key(objectKey(key)).range(range).build(), key);
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        try {
+            s3.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(objectKey(key)).build());
+            return true;
+        } catch (S3Exception ex) {
+            throw new IOException("Could not delete " + key, ex);
+        }
+    }
+
+    @Override
+    public Optional<StorageObject> stat(String key) throws IOException {
+        try {
+            HeadObjectResponse head = s3.headObject(
+                    HeadObjectRequest.builder().bucket(bucket).key(objectKey(key)).build());
+            return Optional.of(new StorageObject(key, head.contentLength(), head.lastModified()));
+        } catch (NoSuchKeyException ex) {
+            return Optional.empty();
+        } catch (S3Exception ex) {
+            if (ex.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw new IOException("Could not stat " + key, ex);
+        }
+    }
+
+    /**
+     * ListObjectsV2 already returns keys in ascending UTF-8 byte order; pages are fetched as the stream advances.
+     */
+    @Override
+    public Stream<StorageObject> list() throws IOException {
+        try {
+            return s3.listObjectsV2Paginator(ListObjectsV2Request.builder().bucket(bucket).prefix(prefix).build())
+                    .contents()
+                    .stream()
+                    .map(object -> new StorageObject(object.key().substring(prefix.length()), object.size(),
+                            object.lastModified()));
+        } catch (S3Exception ex) {
+            throw new IOException("Could not list bucket " + bucket, ex);
+        }
+    }
+
+    private InputStream getObject(GetObjectRequest request, String key) throws IOException {
+        try {
+            return new AbortOnCloseInputStream(s3.getObject(request));
+        } catch (NoSuchKeyException ex) {
+            throw new FileNotFoundException("No such object: " + key);
+        } catch (S3Exception ex) {
+            throw new IOException("Could not read " + key, ex);
+        }
+    }
+
+    private String objectKey(String key) {
+        return prefix + key;
+    }
+
+    /**
+     * Closing a response stream early would otherwise drain the rest of the object to keep the connection
+     * reusable; a byte-range download that stops early should drop the connection instead.
+     */
+    private static class AbortOnCloseInputStream extends FilterInputStream {
+
+        private final ResponseInputStream<GetObjectResponse> response;
+        private boolean eof;
+
+        AbortOnCloseInputStream(ResponseInputStream<GetObjectResponse> response) {
+            super(response);
+            this.response = response;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            eof = b < 0;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            eof = read < 0;
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!eof) {
+                response.abort();
+            }
+            super.close();
+        }
+    }
+}
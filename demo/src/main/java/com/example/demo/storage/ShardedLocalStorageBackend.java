@@ -0,0 +1,93 @@
+package com.example.demo.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Spreads objects over a fixed-depth directory tree taken from the key prefix, e.g. {@code ab/cd/abcd…}.
+ * With hex keys and two levels of two characters every directory holds at most 256 entries, so lookups stay
+ * cheap regardless of how many objects are stored.
+ */
+public class ShardedLocalStorageBackend extends LocalStorageBackend {
+
+    /** Blob hashes and their derived objects ({@code <hash>.<suffix>}); nothing else was stored through a backend. */
+    private static final Pattern CONTENT_KEY = Pattern.compile("[0-9a-f]{64}(\\..+)?");
+
+    private final int depth;
+    private final int width;
+
+    public ShardedLocalStorageBackend(Path root, int depth, int width) throws IOException {
+        super(root);
+        this.depth = depth;
+        this.width = width;
+    }
+
+    /**
+     * Walks the shard directories in name order. Since every directory level is a prefix of the keys below it,
+     * sorting each (small) directory is enough for the whole listing to come out in key order. Keys too short to
+     * be sharded, and anything else left in the root, are not listed.
+     */
+    @Override
+    public Stream<StorageObject> list() throws IOException {
+        return walk(root, 0);
+    }
+
+    /**
+     * Moves objects left directly under the root by the flat {@link LocalStorageBackend} into their shard
+     * directories, so an upload directory switched to this layout stays readable. Each move is a rename on the same
+     * file system, and the root is streamed rather than listed into memory. Pre-content-addressing uploads, which
+     * are read by path, are left where they are.
+     *
+     * @return the number of objects moved
+     */
+    public int migrateFlatObjects() throws IOException {
+        int moved = 0;
+        try (Stream<Path> entries = Files.list(root)) {
+            for (Path path : (Iterable<Path>) entries::iterator) {
+                String key = path.getFileName().toString();
+                if (!CONTENT_KEY.matcher(key).matches() || !Files.isRegularFile(path)) {
+                    continue;
+                }
+                Path target = resolve(key);
+                Files.createDirectories(target.getParent());
+                Files.move(path, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    private Stream<StorageObject> walk(Path directory, int level) throws IOException {
+        if (level == depth) {
+            return listDirectory(directory).filter(Files::isRegularFile).map(LocalStorageBackend::toStorageObject);
+        }
+        return listDirectory(directory)
+                .filter(path -> Files.isDirectory(path) && path.getFileName().toString().length() == width)
+                .flatMap(path -> {
+                    try {
+                        return walk(path, level + 1);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+    }
+
+    @Override
+    protected Path resolve(String key) {
+        Path flat = super.resolve(key);
+        if (key.length() < depth * width) {
+            return flat;
+        }
+
+        Path directory = root;
+        for (int level = 0; level < depth; level++) {
+            directory = directory.resolve(key.substring(level * width, (level + 1) * width));
+        }
+        return directory.resolve(key);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Where blob bytes live. Keys are opaque, flat strings (the content hash for blobs); each backend decides how
+ * they map onto its own namespace.
+ */
+public interface StorageBackend {
+
+    void put(String key, InputStream content, long size) throws IOException;
+
+    /**
+     * Stores a local file under {@code key}. The file is consumed: backends on the same file system rename it,
+     * the others upload and delete it.
+     */
+    default void putFile(String key, Path source) throws IOException {
+        try (InputStream in = Files.newInputStream(source)) {
+            put(key, in, Files.size(source));
+        }
+        Files.deleteIfExists(source);
+    }
+
+    InputStream get(String key) throws IOException;
+
+    /**
+     * Reads {@code length} bytes starting at {@code offset}; a negative length reads to the end of the object.
+     */
+    InputStream getRange(String key, long offset, long length) throws IOException;
+
+    /**
+     * @return {@code true} if an object was removed
+     */
+    boolean delete(String key) throws IOException;
+
+    Optional<StorageObject> stat(String key) throws IOException;
+
+    /**
+     * Streams the stored objects in ascending key order ({@link String#compareTo}), lazily, so callers can
+     * merge the listing against another sorted source without holding either in memory. The stream must be closed.
+     */
+    Stream<StorageObject> list() throws IOException;
+
+    /**
+     * The file backing {@code key} when the backend keeps objects on the local file system, which lets the
+     * download path use zero-copy transfers.
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+}
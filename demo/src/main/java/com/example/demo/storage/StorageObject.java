@@ -0,0 +1,6 @@
+package com.example.demo.storage;
+
+import java.time.Instant;
+
+public record StorageObject(String key, long size, Instant lastModified) {
+}
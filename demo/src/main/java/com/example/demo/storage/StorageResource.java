@@ -0,0 +1,89 @@
+package com.example.demo.storage;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A {@link org.springframework.core.io.Resource} over a backend object. Its streams open lazily, so a
+ * {@code skip} issued before the first read (which is how Spring MVC serves byte ranges) turns into a ranged
+ * backend read instead of downloading and discarding the prefix.
+ */
+public class StorageResource extends AbstractResource {
+
+    private final StorageBackend backend;
+    private final String key;
+    private final long size;
+
+    public StorageResource(StorageBackend backend, String key, long size) {
+        this.backend = backend;
+        this.key = key;
+        this.size = size;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new LazyRangeInputStream();
+    }
+
+    @Override
+    public long contentLength() {
+        return size;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public String getFilename() {
+        return key;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Storage object [" + key + "]";
+    }
+
+    private class LazyRangeInputStream extends InputStream {
+
+        private long position;
+        private InputStream delegate;
+
+        @Override
+        public int read() throws IOException {
+            return open().read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            return open().read(buffer, offset, length);
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (delegate != null) {
+                return delegate.skip(n);
+            }
+            long skipped = Math.max(0, Math.min(n, size - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (delegate != null) {
+                delegate.close();
+            }
+        }
+
+        private InputStream open() throws IOException {
+            if (delegate == null) {
+                delegate = position == 0 ? backend.get(key) : backend.getRange(key, position, -1);
+            }
+            return delegate;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.demo.web;
+
+import com.example.demo.model.dto.FileDownload;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Decides whether a download request counts towards the access statistics and signed-link limits. Every response
+ * that sends the body counts, except a range that continues a transfer of the same representation through the
+ * same link, counted on this node within {@code download.count.resume-window}. Revalidations answered with 304,
+ * failed preconditions, unsatisfiable ranges and {@code HEAD} send no body and do not count.
+ *
+ * <p>The 304 decision is the one Spring MVC and {@link ZeroCopyDownloadHandler} make, so a made-up
+ * {@code If-None-Match} or a {@code Range: bytes=1-} still counts.
+ */
+@Component
+public class DownloadCountPolicy {
+
+    private final Cache<String, Boolean> countedTransfers;
+
+    public DownloadCountPolicy(@Value("${download.count.resume-window:PT1H}") Duration resumeWindow,
+                               @Value("${download.count.max-tracked:100000}") long maxTracked) {
+        this.countedTransfers = Caffeine.newBuilder()
+                .expireAfterWrite(resumeWindow)
+                .maximumSize(maxTracked)
+                .build();
+    }
+
+    /**
+     * @param scope       the link the content is requested through, e.g. the share token
+     * @param download    the representation that will be sent
+     * @param honourRange whether a {@code Range} header will be applied (false when {@code If-Range} is stale)
+     */
+    public boolean counts(String scope, FileDownload download, boolean honourRange, HttpServletRequest request) {
+        if ("HEAD".equals(request.getMethod())) {
+            return false;
+        }
+        long lastModified = download.getLastModified() != null ? download.getLastModified().toEpochMilli() : -1;
+        if (new ServletWebRequest(request).checkNotModified(download.getETag(), lastModified)) {
+            return false;
+        }
+
+        String transfer = scope + ' ' + download.getETag();
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (honourRange && range != null) {
+            long start;
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                start = ranges.isEmpty() ? 0 : ranges.get(0).getRangeStart(download.getFileSize());
+            } catch (IllegalArgumentException ex) {
+                // Answered with 416
+                return false;
+            }
+            if (start >= download.getFileSize() && download.getFileSize() > 0) {
+                return false;
+            }
+            if (start > 0 && countedTransfers.getIfPresent(transfer) != null) {
+                return false;
+            }
+        }
+
+        countedTransfers.put(transfer, Boolean.TRUE);
+        return true;
+    }
+}
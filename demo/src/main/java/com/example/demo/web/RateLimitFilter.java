@@ -0,0 +1,278 @@
+package com.example.demo.web;
+
+import com.example.demo.config.RateLimitProperties;
+import com.example.demo.config.RateLimitProperties.Limit;
+import com.example.demo.exception.RateLimitExceededException;
+import com.example.demo.security.AuthenticatedUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles downloads ({@code /files/shared/**}, {@code /files/s/**}, {@code /files/download/**}) with token
+ * buckets keyed by the caller - the user id with its role's limit, or the client IP for anonymous requests - and,
+ * for public and signed links, by the share token. Requests over the rate get 429 with {@code Retry-After};
+ * accepted responses are shaped to the bandwidth limit by sleeping inside the output stream, which on virtual
+ * threads parks instead of holding a thread. Shaped responses skip sendfile, since the connector would bypass the
+ * stream.
+ *
+ * <p>A request takes a permit from every bucket or from none: all of them are checked before any is taken, so a
+ * request refused by the link's bucket does not use up the caller's budget. The caller's bucket is checked first,
+ * so one scraper exhausts its own budget rather than the link's. Behind a reverse proxy set
+ * {@code server.forward-headers-strategy} so the client IP is the real one.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SHARED_PREFIX = "/files/shared/";
+    private static final String SIGNED_PREFIX = "/files/s/";
+    private static final int SHAPING_CHUNK = 16 * 1024;
+
+    private final RateLimitProperties properties;
+    private final HandlerExceptionResolver exceptionResolver;
+    private final Map<String, Counter> rejected;
+    private final Cache<String, Buckets> buckets;
+    private final Timer shapingDelay;
+
+    public RateLimitFilter(RateLimitProperties properties,
+                           @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver,
+                           MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.exceptionResolver = exceptionResolver;
+        this.rejected = Map.of(
+                "user", rejectedCounter(meterRegistry, "user"),
+                "ip", rejectedCounter(meterRegistry, "ip"),
+                "share", rejectedCounter(meterRegistry, "share"));
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxTrackedKeys())
+                .expireAfterAccess(properties.getIdleExpiry())
+                .build();
+        this.shapingDelay = Timer.builder("rate.limit.shaping.delay")
+                .description("Time downloads spent paused to stay within their bandwidth limit")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+        String path = request.getServletPath();
+        String method = request.getMethod();
+        return !("GET".equals(method) && (path.startsWith(SHARED_PREFIX) || path.startsWith(SIGNED_PREFIX)
+                || path.startsWith("/files/download/"))
+                || "POST".equals(method) && path.equals("/files/download/zip"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        List<Buckets> applicable = new ArrayList<>(2);
+        applicable.add(callerBuckets(request));
+        String shareToken = shareToken(request);
+        if (shareToken != null) {
+            applicable.add(buckets.get("share:" + shareToken, key -> new Buckets("share", properties.getShareToken())));
+        }
+
+        for (Buckets bucket : applicable) {
+            long wait = bucket.requests() != null ? bucket.requests().availableIn(1) : 0;
+            if (wait > 0) {
+                reject(bucket, wait, request, response);
+                return;
+            }
+        }
+        List<TokenBucket> taken = new ArrayList<>(2);
+        for (Buckets bucket : applicable) {
+            long wait = bucket.requests() != null ? bucket.requests().tryAcquire(1) : 0;
+            if (wait > 0) {
+                // Emptied by a concurrent request since the check
+                taken.forEach(requests -> requests.refund(1));
+                reject(bucket, wait, request, response);
+                return;
+            }
+            if (bucket.requests() != null) {
+                taken.add(bucket.requests());
+            }
+        }
+
+        List<TokenBucket> bandwidth = applicable.stream().map(Buckets::bytes).filter(bucket -> bucket != null).toList();
+        if (bandwidth.isEmpty()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        filterChain.doFilter(new NoSendfileRequest(request), new ShapedResponse(response, bandwidth));
+    }
+
+    private void reject(Buckets bucket, long waitNanos, HttpServletRequest request, HttpServletResponse response) {
+        rejected.get(bucket.scope()).increment();
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        exceptionResolver.resolveException(request, response, null,
+                new RateLimitExceededException("Too many requests, please retry later", retryAfter));
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String scope) {
+        return Counter.builder("rate.limit.rejected")
+                .description("Requests rejected with 429, by the bucket that was empty")
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+
+    private Buckets callerBuckets(HttpServletRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof AuthenticatedUser user) {
+            return buckets.get("user:" + user.getId(), key -> new Buckets("user", properties.forRole(user.getRole())));
+        }
+        return buckets.get("ip:" + request.getRemoteAddr(), key -> new Buckets("ip", properties.getAnonymous()));
+    }
+
+    private static String shareToken(HttpServletRequest request) {
+        String path = request.getServletPath();
+        String prefix = path.startsWith(SHARED_PREFIX) ? SHARED_PREFIX : path.startsWith(SIGNED_PREFIX) ? SIGNED_PREFIX : null;
+        if (prefix == null) {
+            return null;
+        }
+        String token = path.substring(prefix.length());
+        int slash = token.indexOf('/');
+        return slash >= 0 ? token.substring(0, slash) : token;
+    }
+
+    /**
+     * The buckets of one key; {@code null} where the limit is disabled.
+     */
+    private record Buckets(String scope, TokenBucket requests, TokenBucket bytes) {
+
+        Buckets(String scope, Limit limit) {
+            this(scope,
+                    limit.getRequestsPerSecond() > 0
+                            ? new TokenBucket(limit.getRequestsPerSecond(), Math.max(1, limit.getBurst())) : null,
+                    limit.getBytesPerSecond().toBytes() > 0
+                            ? new TokenBucket(limit.getBytesPerSecond().toBytes(),
+                                    Math.max(SHAPING_CHUNK, limit.getByteBurst().toBytes())) : null);
+        }
+    }
+
+    /**
+     * Reports sendfile as unsupported, so {@link ZeroCopyDownloadHandler} falls back to the shaped stream.
+     */
+    private static final class NoSendfileRequest extends HttpServletRequestWrapper {
+
+        private NoSendfileRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return SENDFILE_SUPPORTED_ATTR.equals(name) ? null : super.getAttribute(name);
+        }
+    }
+
+    private final class ShapedResponse extends HttpServletResponseWrapper {
+
+        private final List<TokenBucket> bandwidth;
+        private ServletOutputStream outputStream;
+
+        private ShapedResponse(HttpServletResponse response, List<TokenBucket> bandwidth) {
+            super(response);
+            this.bandwidth = bandwidth;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new ShapedOutputStream(super.getOutputStream(), bandwidth);
+            }
+            return outputStream;
+        }
+    }
+
+    private final class ShapedOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+        private final List<TokenBucket> bandwidth;
+
+        private ShapedOutputStream(ServletOutputStream delegate, List<TokenBucket> bandwidth) {
+            this.delegate = delegate;
+            this.bandwidth = bandwidth;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            pace(1);
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            // Small slices keep the output smooth instead of one long pause per buffer
+            while (len > 0) {
+                int slice = Math.min(len, SHAPING_CHUNK);
+                pace(slice);
+                delegate.write(b, off, slice);
+                off += slice;
+                len -= slice;
+            }
+        }
+
+        private void pace(int bytes) throws IOException {
+            long wait = 0;
+            for (TokenBucket bucket : bandwidth) {
+                wait = Math.max(wait, bucket.reserve(bytes));
+            }
+            if (wait <= 0) {
+                return;
+            }
+            shapingDelay.record(wait, TimeUnit.NANOSECONDS);
+            try {
+                Thread.sleep(Duration.ofNanos(wait));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while shaping the download");
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.web;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in its GCRA form: the whole state is the theoretical time at which the bucket would be
+ * full again, updated with a single CAS. Each permit pushes that time forward by one emission interval; a
+ * request fits while the time stays within {@code burst} intervals of now.
+ */
+final class TokenBucket {
+
+    private final double nanosPerPermit;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(double permitsPerSecond, long burst) {
+        this.nanosPerPermit = 1_000_000_000d / permitsPerSecond;
+        this.burstNanos = (long) (burst * nanosPerPermit);
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Takes the permits if they are available now.
+     *
+     * @return 0 if they were taken, otherwise the nanoseconds until they would be (nothing is taken)
+     */
+    long tryAcquire(long permits) {
+        long cost = cost(permits);
+        while (true) {
+            long now = System.nanoTime();
+            long current = fullAt.get();
+            long next = Math.max(current, now) + cost;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Checks whether the permits are available now without taking them.
+     *
+     * @return 0 if they are, otherwise the nanoseconds until they would be
+     */
+    long availableIn(long permits) {
+        long now = System.nanoTime();
+        return Math.max(0, Math.max(fullAt.get(), now) + cost(permits) - now - burstNanos);
+    }
+
+    /**
+     * Gives back permits taken by {@link #tryAcquire} that ended up unused.
+     */
+    void refund(long permits) {
+        fullAt.addAndGet(-cost(permits));
+    }
+
+    /**
+     * Takes the permits unconditionally, going into debt if needed.
+     *
+     * @return the nanoseconds the caller has to wait before using them
+     */
+    long reserve(long permits) {
+        long cost = cost(permits);
+        long now = System.nanoTime();
+        long next = fullAt.accumulateAndGet(cost, (current, add) -> Math.max(current, now) + add);
+        return Math.max(0, next - now - burstNanos);
+    }
+
+    private long cost(long permits) {
+        return (long) Math.ceil(permits * nanosPerPermit);
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.demo.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Meters file transfers end to end, including the part that happens after the controller returns (resource
+ * copying, ZIP streaming on the async executor):
+ * <ul>
+ *     <li>{@code transfer.bytes} - bytes moved, by direction, endpoint and outcome;</li>
+ *     <li>{@code transfer.duration} - time from the first filter to the last byte, same tags plus {@code mode};</li>
+ *     <li>{@code transfer.active} - transfers in flight, by direction.</li>
+ * </ul>
+ * Sendfile downloads are finished by the connector after the request returns, so their duration covers the
+ * hand-off only and their bytes are the scheduled range; they are tagged {@code mode=sendfile}.
+ */
+@Component
+public class TransferMetricsFilter extends OncePerRequestFilter {
+
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger activeUploads = new AtomicInteger();
+    private final AtomicInteger activeDownloads = new AtomicInteger();
+    private final Map<MeterKey, TransferMeters> meters = new ConcurrentHashMap<>();
+
+    public TransferMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("transfer.active", activeUploads, AtomicInteger::get)
+                .description("Uploads in flight")
+                .tag("direction", "upload")
+                .register(meterRegistry);
+        Gauge.builder("transfer.active", activeDownloads, AtomicInteger::get)
+                .description("Downloads in flight")
+                .tag("direction", "download")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return endpoint(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String endpoint = endpoint(request);
+        boolean upload = isUpload(endpoint);
+        Transfer transfer = new Transfer(upload, endpoint, System.nanoTime());
+        CountingResponse countingResponse = new CountingResponse(response);
+        (upload ? activeUploads : activeDownloads).incrementAndGet();
+
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, countingResponse);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        transfer.finish(request, countingResponse, false);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        transfer.finish(request, countingResponse, true);
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        transfer.finish(request, countingResponse, true);
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                transfer.finish(request, countingResponse, failed);
+            }
+        }
+    }
+
+    /**
+     * Maps the request to a low-cardinality endpoint tag, or {@code null} if it is not a transfer.
+     */
+    private static String endpoint(HttpServletRequest request) {
+        String path = request.getServletPath();
+        String method = request.getMethod();
+        if ("POST".equals(method) && path.equals("/files/upload")) {
+            return "upload";
+        }
+        if ("PUT".equals(method) && path.startsWith("/files/uploads/")) {
+            return "upload_chunk";
+        }
+        if ("POST".equals(method) && path.equals("/files/download/zip")) {
+            return "download_zip";
+        }
+        if ("GET".equals(method) && path.startsWith("/files/download/")) {
+            return "download";
+        }
+        if ("GET".equals(method) && path.startsWith("/files/shared/")) {
+            return "shared";
+        }
+        if ("GET".equals(method) && path.startsWith("/files/s/")) {
+            return "shared_signed";
+        }
+        return null;
+    }
+
+    private static boolean isUpload(String endpoint) {
+        return endpoint.startsWith("upload");
+    }
+
+    private static String outcome(int status, boolean failed) {
+        if (failed) {
+            return "aborted";
+        }
+        if (status >= 500) {
+            return "server_error";
+        }
+        if (status >= 400) {
+            return "client_error";
+        }
+        if (status == HttpServletResponse.SC_NOT_MODIFIED) {
+            return "not_modified";
+        }
+        return "success";
+    }
+
+    private final class Transfer {
+
+        private final boolean upload;
+        private final String endpoint;
+        private final long startNanos;
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private Transfer(boolean upload, String endpoint, long startNanos) {
+            this.upload = upload;
+            this.endpoint = endpoint;
+            this.startNanos = startNanos;
+        }
+
+        void finish(HttpServletRequest request, CountingResponse response, boolean failed) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            (upload ? activeUploads : activeDownloads).decrementAndGet();
+
+            boolean sendfile = request.getAttribute(SENDFILE_FILENAME_ATTR) != null;
+            long bytes;
+            if (upload) {
+                bytes = Math.max(request.getContentLengthLong(), 0);
+            } else if (sendfile) {
+                bytes = (Long) request.getAttribute(SENDFILE_END_ATTR) - (Long) request.getAttribute(SENDFILE_START_ATTR);
+            } else {
+                bytes = response.bytesWritten();
+            }
+
+            MeterKey key = new MeterKey(endpoint, outcome(response.getStatus(), failed), sendfile);
+            TransferMeters transferMeters = meters(key);
+            transferMeters.bytes().increment(bytes);
+            transferMeters.duration().record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * The meters of one tag combination, registered on first use and then reused. The set is small and fixed
+     * (endpoint x outcome x mode), so the map stays bounded.
+     */
+    private TransferMeters meters(MeterKey key) {
+        TransferMeters existing = meters.get(key);
+        return existing != null ? existing : meters.computeIfAbsent(key, this::register);
+    }
+
+    private TransferMeters register(MeterKey key) {
+        String direction = isUpload(key.endpoint()) ? "upload" : "download";
+        Counter bytes = Counter.builder("transfer.bytes")
+                .description("Bytes uploaded or downloaded")
+                .baseUnit("bytes")
+                .tag("direction", direction)
+                .tag("endpoint", key.endpoint())
+                .tag("outcome", key.outcome())
+                .register(meterRegistry);
+        Timer duration = Timer.builder("transfer.duration")
+                .description("Time from the start of the request to the last byte of the transfer")
+                .tag("direction", direction)
+                .tag("endpoint", key.endpoint())
+                .tag("outcome", key.outcome())
+                .tag("mode", key.sendfile() ? "sendfile" : "streamed")
+                .register(meterRegistry);
+        return new TransferMeters(bytes, duration);
+    }
+
+    private record MeterKey(String endpoint, String outcome, boolean sendfile) {
+    }
+
+    private record TransferMeters(Counter bytes, Timer duration) {
+    }
+
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+
+        private final LongAdder bytesWritten = new LongAdder();
+        private ServletOutputStream outputStream;
+
+        private CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        long bytesWritten() {
+            return bytesWritten.sum();
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new CountingOutputStream(super.getOutputStream(), bytesWritten);
+            }
+            return outputStream;
+        }
+    }
+
+    private static final class CountingOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+        private final LongAdder bytesWritten;
+
+        private CountingOutputStream(ServletOutputStream delegate, LongAdder bytesWritten) {
+            this.delegate = delegate;
+            this.bytesWritten = bytesWritten;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            bytesWritten.increment();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            bytesWritten.add(len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.web;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free bytes-per-second meter over a sliding window of one-second buckets.
+ * A bucket is recycled by whichever thread first observes that its second has passed; a few bytes recorded
+ * during that hand-over may be lost, which is fine for a throughput gauge.
+ */
+public class TransferRateMeter {
+
+    private final int windowSeconds;
+    private final AtomicLongArray bucketBytes;
+    private final AtomicLongArray bucketSecond;
+    private final LongAdder totalBytes = new LongAdder();
+    private final LongAdder totalTransfers = new LongAdder();
+
+    public TransferRateMeter(int windowSeconds) {
+        this.windowSeconds = windowSeconds;
+        this.bucketBytes = new AtomicLongArray(windowSeconds);
+        this.bucketSecond = new AtomicLongArray(windowSeconds);
+    }
+
+    public void record(long bytes) {
+        long now = currentSecond();
+        int index = (int) (now % windowSeconds);
+        long second = bucketSecond.get(index);
+        if (second != now && bucketSecond.compareAndSet(index, second, now)) {
+            bucketBytes.set(index, 0);
+        }
+        bucketBytes.addAndGet(index, bytes);
+        totalBytes.add(bytes);
+        totalTransfers.increment();
+    }
+
+    public double bytesPerSecond() {
+        long now = currentSecond();
+        long sum = 0;
+        for (int i = 0; i < windowSeconds; i++) {
+            if (now - bucketSecond.get(i) < windowSeconds) {
+                sum += bucketBytes.get(i);
+            }
+        }
+        return (double) sum / windowSeconds;
+    }
+
+    public long totalBytes() {
+        return totalBytes.sum();
+    }
+
+    public long totalTransfers() {
+        return totalTransfers.sum();
+    }
+
+    public int windowSeconds() {
+        return windowSeconds;
+    }
+
+    private static long currentSecond() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.demo.web;
+
+import com.example.demo.security.AuthenticatedUser;
+import com.example.demo.service.StorageQuotaService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Rejects multipart uploads that cannot fit in the caller's quota before the body is read. Multipart parsing is
+ * lazy ({@code spring.servlet.multipart.resolve-lazily}), so this runs before the container spools the file.
+ * {@code Content-Length} includes the multipart framing, which is allowed for with a small margin; the exact
+ * charge still happens in {@code FileService}.
+ */
+@Component
+@RequiredArgsConstructor
+public class UploadQuotaInterceptor implements HandlerInterceptor {
+
+    private static final long MULTIPART_OVERHEAD = 16 * 1024;
+
+    private final StorageQuotaService storageQuotaService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        long contentLength = request.getContentLengthLong();
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+
+        if (contentLength > MULTIPART_OVERHEAD && auth != null && auth.getPrincipal() instanceof AuthenticatedUser user) {
+            storageQuotaService.checkAvailable(user.getId(), contentLength - MULTIPART_OVERHEAD);
+        }
+        return true;
+    }
+}
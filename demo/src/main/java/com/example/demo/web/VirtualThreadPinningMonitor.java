@@ -0,0 +1,118 @@
+package com.example.demo.web;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier (inside {@code synchronized} or a native
+ * frame). A pinned thread holds one of the few carrier threads for the whole blocking call, so a pinning site on
+ * the transfer path caps concurrency at the carrier count.
+ *
+ * <p>Listens to the JFR {@code jdk.VirtualThreadPinned} event in-process. Each distinct site is logged once with
+ * its stack; later hits are only counted.
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@ConditionalOnProperty(name = "diagnostics.virtual-threads.pinning.enabled", havingValue = "true", matchIfMissing = true)
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+
+    private final Duration threshold;
+    private final LongAdder pinnedEvents = new LongAdder();
+    private final Map<String, PinnedSite> pinnedSites = new ConcurrentHashMap<>();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(@Value("${diagnostics.virtual-threads.pinning.threshold:PT0.02S}") Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Watching for virtual threads pinned longer than {}", threshold);
+    }
+
+    public long pinnedEvents() {
+        return pinnedEvents.sum();
+    }
+
+    /**
+     * Pinning counts by the first application frame of each site.
+     */
+    public Map<String, Long> pinnedSites() {
+        return pinnedSites.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().count.sum()));
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedEvents.increment();
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        String site = stackTrace == null ? "unknown" : site(stackTrace);
+
+        PinnedSite pinnedSite = pinnedSites.computeIfAbsent(site, key -> new PinnedSite());
+        pinnedSite.count.increment();
+        // Not count.sum() == 1: two concurrent first hits may both see 2, or a later one may still see 1
+        if (pinnedSite.logged.compareAndSet(false, true)) {
+            log.warn("Virtual thread pinned for {} ms at {}:\n{}",
+                    event.getDuration().toMillis(), site, format(stackTrace));
+        }
+    }
+
+    private static String site(RecordedStackTrace stackTrace) {
+        return stackTrace.getFrames().stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(VirtualThreadPinningMonitor::frame)
+                .filter(frame -> frame.startsWith("com.example."))
+                .findFirst()
+                .orElseGet(() -> stackTrace.getFrames().isEmpty() ? "unknown" : frame(stackTrace.getFrames().get(0)));
+    }
+
+    private static String format(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "\t(no stack trace)";
+        }
+        return stackTrace.getFrames().stream()
+                .limit(LOGGED_FRAMES)
+                .map(frame -> "\tat " + frame(frame))
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String frame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private static final class PinnedSite {
+        private final LongAdder count = new LongAdder();
+        private final AtomicBoolean logged = new AtomicBoolean();
+    }
+}
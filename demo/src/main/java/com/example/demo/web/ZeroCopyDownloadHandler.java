@@ -0,0 +1,149 @@
+package com.example.demo.web;
+
+import com.example.demo.model.dto.FileDownload;
+import com.example.demo.model.dto.TransferStatsDTO;
+import com.example.demo.storage.CachedBlobResource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves large local files through Tomcat's sendfile support: the handler only sets the response headers and
+ * the {@code org.apache.tomcat.sendfile.*} request attributes, and after the servlet returns the connector
+ * hands the file region to the kernel ({@code sendfile(2)} / {@code FileChannel.transferTo}). The bytes go
+ * from page cache to socket without passing through the JVM heap, and the poller thread drives the transfer,
+ * so the request thread is released as soon as the headers are prepared.
+ *
+ * <p>Anything sendfile cannot express (multi-range requests, non-file resources, HEAD) is left to the regular
+ * Spring MVC resource path.
+ */
+@Slf4j
+@Component
+public class ZeroCopyDownloadHandler {
+
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private final boolean enabled;
+    private final long minSize;
+    private final TransferRateMeter rateMeter;
+    private final LongAdder streamedFallbacks = new LongAdder();
+
+    public ZeroCopyDownloadHandler(@Value("${file.download.sendfile.enabled:true}") boolean enabled,
+                                   @Value("${file.download.sendfile.min-size:1MB}") DataSize minSize,
+                                   @Value("${file.download.sendfile.rate-window-seconds:60}") int rateWindowSeconds) {
+        this.enabled = enabled;
+        this.minSize = minSize.toBytes();
+        this.rateMeter = new TransferRateMeter(rateWindowSeconds);
+    }
+
+    /**
+     * Prepares the response for a sendfile transfer.
+     *
+     * @param honourRange whether a {@code Range} header may be applied (false when {@code If-Range} is stale)
+     * @return {@code true} if the response is complete from the handler's point of view (sendfile scheduled,
+     * 304 or 416 sent), {@code false} if the caller should fall back to the streamed path
+     */
+    public boolean trySend(FileDownload download, boolean honourRange,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!enabled || download.getFileSize() < minSize || !"GET".equals(request.getMethod())) {
+            return false;
+        }
+
+        Resource resource = download.getResource();
+        if (resource instanceof CachedBlobResource) {
+            // Already in memory: copying from the cache is cheaper than going back to the file
+            return false;
+        }
+        if (!resource.isFile() || !Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+            streamedFallbacks.increment();
+            return false;
+        }
+
+        long length = download.getFileSize();
+        long start = 0;
+        long end = length - 1;
+        boolean partial = false;
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (honourRange && rangeHeader != null) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException ex) {
+                return false;
+            }
+            if (ranges.size() != 1) {
+                return false;
+            }
+            try {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+            } catch (IllegalArgumentException ex) {
+                // Unsatisfiable range: let the streamed path answer with 416
+                return false;
+            }
+            partial = true;
+        }
+
+        long lastModified = download.getLastModified() != null ? download.getLastModified().toEpochMilli() : -1;
+        if (new ServletWebRequest(request, response).checkNotModified(download.getETag(), lastModified)) {
+            return true;
+        }
+
+        long count = end - start + 1;
+        response.setStatus(partial ? HttpStatus.PARTIAL_CONTENT.value() : HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (download.getContentEncoding() != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, download.getContentEncoding());
+        }
+        if (download.isEncodingNegotiated()) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + download.getFileName() + "\"");
+        if (partial) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        response.setContentLengthLong(count);
+
+        request.setAttribute(SENDFILE_FILENAME_ATTR, resource.getFile().getAbsolutePath());
+        request.setAttribute(SENDFILE_START_ATTR, start);
+        request.setAttribute(SENDFILE_END_ATTR, end + 1);
+
+        rateMeter.record(count);
+        log.debug("Scheduled sendfile of {} bytes for {}", count, download.getFileName());
+        return true;
+    }
+
+    /**
+     * The connector completes sendfile transfers asynchronously, so the rate is measured on the bytes handed to
+     * the kernel per second; under sustained load that converges on the delivered throughput.
+     */
+    public TransferStatsDTO getStats() {
+        TransferStatsDTO stats = new TransferStatsDTO();
+        stats.setSendfileEnabled(enabled);
+        stats.setSendfileTransfers(rateMeter.totalTransfers());
+        stats.setSendfileBytes(rateMeter.totalBytes());
+        stats.setSendfileBytesPerSecond(rateMeter.bytesPerSecond());
+        stats.setWindowSeconds(rateMeter.windowSeconds());
+        stats.setStreamedFallbacks(streamedFallbacks.sum());
+        return stats;
+    }
+}
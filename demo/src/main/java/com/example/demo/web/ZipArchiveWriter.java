@@ -0,0 +1,91 @@
+package com.example.demo.web;
+
+import com.example.demo.model.dto.FileDownload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.attribute.FileTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a ZIP archive straight to the response. Entries are copied through a fixed buffer one after another,
+ * so memory use does not depend on the number or size of the files and nothing is written to disk.
+ *
+ * <p>Formats that are already compressed are written at deflate level 0: recompressing them costs CPU and gains
+ * nothing. {@code STORED} would avoid even that framing but needs the CRC before the entry, i.e. a second read.
+ */
+@Slf4j
+@Component
+public class ZipArchiveWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "jpg", "jpeg", "png", "gif", "webp", "heic", "avif",
+            "mp3", "aac", "ogg", "flac", "mp4", "mov", "mkv", "webm", "avi",
+            "zip", "gz", "tgz", "bz2", "xz", "zst", "7z", "rar", "jar",
+            "docx", "xlsx", "pptx", "odt", "ods", "epub", "pdf");
+
+    public void write(List<FileDownload> downloads, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+        Set<String> usedNames = new HashSet<>();
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        for (FileDownload download : downloads) {
+            String name = uniqueName(download.getFileName(), usedNames);
+            zip.setLevel(isCompressed(name) ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+
+            ZipEntry entry = new ZipEntry(name);
+            if (download.getLastModified() != null) {
+                entry.setLastModifiedTime(FileTime.from(download.getLastModified()));
+            }
+            zip.putNextEntry(entry);
+            try (InputStream in = download.getResource().getInputStream()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    zip.write(buffer, 0, read);
+                }
+            }
+            zip.closeEntry();
+        }
+
+        zip.finish();
+        zip.flush();
+        log.debug("Streamed ZIP archive with {} entries", downloads.size());
+    }
+
+    private static boolean isCompressed(String fileName) {
+        String extension = StringUtils.getFilenameExtension(fileName);
+        return extension != null && COMPRESSED_EXTENSIONS.contains(extension.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Flattens the name to a single path element and appends " (n)" to repeats, so entries never overwrite
+     * each other on extraction.
+     */
+    private static String uniqueName(String fileName, Set<String> usedNames) {
+        String name = fileName.replace('/', '_').replace('\\', '_');
+        if (usedNames.add(name)) {
+            return name;
+        }
+        String base = StringUtils.stripFilenameExtension(name);
+        String extension = StringUtils.getFilenameExtension(name);
+        for (int i = 1; ; i++) {
+            String candidate = base + " (" + i + ")" + (extension != null ? "." + extension : "");
+            if (usedNames.add(candidate)) {
+                return candidate;
+            }
+        }
+    }
+}
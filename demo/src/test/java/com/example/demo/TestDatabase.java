@@ -0,0 +1,87 @@
+package com.example.demo;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * An embedded PostgreSQL loaded from {@code db.sql}, started once per JVM and shared by every test that needs
+ * the real SQL dialect (arrays, {@code RETURNING}, {@code ON CONFLICT}, {@code SKIP LOCKED}). Tests share the
+ * data too, so each one creates its own users.
+ */
+public final class TestDatabase {
+
+	private static final Path SCHEMA = Path.of("..", "db.sql");
+
+	private static TestDatabase instance;
+
+	private final String jdbcUrl;
+
+	private TestDatabase(String jdbcUrl) {
+		this.jdbcUrl = jdbcUrl;
+	}
+
+	public static synchronized TestDatabase embedded() {
+		if (instance == null) {
+			instance = start();
+		}
+		return instance;
+	}
+
+	public String jdbcUrl() {
+		return jdbcUrl;
+	}
+
+	public String username() {
+		return "postgres";
+	}
+
+	public String password() {
+		return "postgres";
+	}
+
+	/**
+	 * Points the application's datasource at this database.
+	 */
+	public void register(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", this::jdbcUrl);
+		registry.add("spring.datasource.username", this::username);
+		registry.add("spring.datasource.password", this::password);
+	}
+
+	private static TestDatabase start() {
+		if (!Files.exists(SCHEMA)) {
+			throw new IllegalStateException("Schema not found at " + SCHEMA.toAbsolutePath());
+		}
+		try {
+			EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+					// Room for the Hikari pool of the app under test plus the seeding connection
+					.setServerConfig("max_connections", "200")
+					.start();
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					postgres.close();
+				} catch (IOException ignored) {
+					// The JVM is going away anyway
+				}
+			}));
+
+			try (Connection connection = postgres.getPostgresDatabase().getConnection()) {
+				ScriptUtils.executeSqlScript(connection, new FileSystemResource(SCHEMA));
+			}
+			return new TestDatabase(postgres.getJdbcUrl("postgres", "postgres"));
+		} catch (IOException ex) {
+			throw new UncheckedIOException("Could not start embedded PostgreSQL", ex);
+		} catch (SQLException ex) {
+			throw new IllegalStateException("Could not load " + SCHEMA, ex);
+		}
+	}
+}
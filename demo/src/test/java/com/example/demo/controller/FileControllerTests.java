@@ -0,0 +1,69 @@
+package com.example.demo.controller;
+
+import com.example.demo.exception.GlobalExceptionHandler;
+import com.example.demo.service.FileAccessTracker;
+import com.example.demo.service.FileService;
+import com.example.demo.service.StorageGarbageCollector;
+import com.example.demo.web.DownloadCountPolicy;
+import com.example.demo.web.ZeroCopyDownloadHandler;
+import com.example.demo.web.ZipArchiveWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Request validation of the admin endpoints; access rules are enforced by method security, not exercised here.
+ */
+class FileControllerTests {
+
+	private FileAccessTracker fileAccessTracker;
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		fileAccessTracker = mock(FileAccessTracker.class);
+		FileController controller = new FileController(mock(FileService.class), mock(ZeroCopyDownloadHandler.class),
+				mock(DownloadCountPolicy.class), mock(ZipArchiveWriter.class), mock(StorageGarbageCollector.class),
+				fileAccessTracker);
+		mockMvc = MockMvcBuilders.standaloneSetup(controller)
+				.setControllerAdvice(new GlobalExceptionHandler())
+				.build();
+	}
+
+	@Test
+	void hotFilesRejectsLimitsOutOfRange() throws Exception {
+		mockMvc.perform(get("/files/admin/hot-files").param("limit", "0")).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/files/admin/hot-files").param("limit", "1001")).andExpect(status().isBadRequest());
+
+		verify(fileAccessTracker, never()).hotFiles(anyInt(), anyBoolean());
+	}
+
+	@Test
+	void hotFilesRejectsUnknownOrderings() throws Exception {
+		mockMvc.perform(get("/files/admin/hot-files").param("by", "size")).andExpect(status().isBadRequest());
+
+		verify(fileAccessTracker, never()).hotFiles(anyInt(), anyBoolean());
+	}
+
+	@Test
+	void hotFilesPassesValidParametersThrough() throws Exception {
+		when(fileAccessTracker.hotFiles(1000, true)).thenReturn(List.of());
+
+		mockMvc.perform(get("/files/admin/hot-files").param("limit", "1000").param("by", "recent"))
+				.andExpect(status().isOk());
+
+		verify(fileAccessTracker).hotFiles(1000, true);
+	}
+}
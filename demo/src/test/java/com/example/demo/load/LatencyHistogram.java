@@ -0,0 +1,72 @@
+package com.example.demo.load;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram in microseconds. Exact below 64 microseconds, then 32 buckets per power of two, so any
+ * percentile is within about 3% of the true value.
+ */
+final class LatencyHistogram {
+
+	private static final int LINEAR = 64;
+	private static final int SUB_BUCKETS = 32;
+	private static final int MAX_EXPONENT = 40;
+
+	private final AtomicLongArray counts = new AtomicLongArray(LINEAR + (MAX_EXPONENT - 5) * SUB_BUCKETS);
+	private final LongAdder total = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	void record(long micros) {
+		long value = Math.max(0, micros);
+		counts.incrementAndGet(index(value));
+		total.increment();
+		max.accumulateAndGet(value, Math::max);
+	}
+
+	long count() {
+		return total.sum();
+	}
+
+	long max() {
+		return max.get();
+	}
+
+	/**
+	 * @param percentile between 0 and 100
+	 */
+	long percentile(double percentile) {
+		long count = count();
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(upperBound(i), max());
+			}
+		}
+		return max();
+	}
+
+	private static int index(long value) {
+		if (value < LINEAR) {
+			return (int) value;
+		}
+		int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+		long subBucket = Math.min(value >> (exponent - 5), 2L * SUB_BUCKETS - 1) - SUB_BUCKETS;
+		return LINEAR + (exponent - 6) * SUB_BUCKETS + (int) subBucket;
+	}
+
+	private static long upperBound(int index) {
+		if (index < LINEAR) {
+			return index;
+		}
+		int exponent = (index - LINEAR) / SUB_BUCKETS + 6;
+		long subBucket = (index - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+		return ((subBucket + 1) << (exponent - 5)) - 1;
+	}
+}
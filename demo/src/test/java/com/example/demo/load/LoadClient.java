@@ -0,0 +1,126 @@
+package com.example.demo.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Thin HTTP client for the endpoints the load test drives. Every call returns the raw response so the caller can
+ * time it and classify the status; response bodies of downloads are read fully and discarded.
+ */
+final class LoadClient {
+
+	private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+	private final HttpClient http = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(Duration.ofSeconds(10))
+			.build();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final String baseUrl;
+
+	LoadClient(String baseUrl) {
+		this.baseUrl = baseUrl;
+	}
+
+	HttpResponse<String> register(String username, String password) throws IOException, InterruptedException {
+		return postForm("/auth/register", Map.of("username", username, "email", username + "@load.test",
+				"password", password));
+	}
+
+	HttpResponse<String> authenticate(String username, String password) throws IOException, InterruptedException {
+		return postForm("/auth/authenticate", Map.of("username", username, "password", password));
+	}
+
+	HttpResponse<String> upload(String token, long userId, String fileName, byte[] content)
+			throws IOException, InterruptedException {
+		String boundary = "load-" + UUID.randomUUID();
+		ByteArrayOutputStream body = new ByteArrayOutputStream(content.length + 256);
+		body.writeBytes(("--" + boundary + "\r\n"
+				+ "Content-Disposition: form-data; name=\"file\"; filename=\"" + fileName + "\"\r\n"
+				+ "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+		body.writeBytes(content);
+		body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+		HttpRequest request = authorized(token, "/files/upload?userId=" + userId)
+				.header("Content-Type", "multipart/form-data; boundary=" + boundary)
+				.POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+				.build();
+		return http.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	HttpResponse<Void> download(String token, long userId, long fileId) throws IOException, InterruptedException {
+		HttpRequest request = authorized(token, "/files/download/" + fileId + "?userId=" + userId).GET().build();
+		return http.send(request, HttpResponse.BodyHandlers.discarding());
+	}
+
+	HttpResponse<String> listPage(String token, long userId, int limit) throws IOException, InterruptedException {
+		HttpRequest request = authorized(token, "/files/user/" + userId + "/page?limit=" + limit).GET().build();
+		return http.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	HttpResponse<String> generateShareLink(String token, long userId, long fileId)
+			throws IOException, InterruptedException {
+		HttpRequest request = authorized(token, "/files/" + fileId + "/share?userId=" + userId)
+				.POST(HttpRequest.BodyPublishers.noBody())
+				.build();
+		return http.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	HttpResponse<String> toggleShare(String token, long userId, long fileId) throws IOException, InterruptedException {
+		HttpRequest request = authorized(token, "/files/" + fileId + "/toggle-share?userId=" + userId)
+				.POST(HttpRequest.BodyPublishers.noBody())
+				.build();
+		return http.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	HttpResponse<Void> downloadShared(String shareToken) throws IOException, InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(uri("/files/shared/" + URLEncoder.encode(shareToken, StandardCharsets.UTF_8)))
+				.timeout(REQUEST_TIMEOUT)
+				.GET()
+				.build();
+		return http.send(request, HttpResponse.BodyHandlers.discarding());
+	}
+
+	JsonNode json(HttpResponse<String> response) throws IOException {
+		return objectMapper.readTree(response.body());
+	}
+
+	/**
+	 * The auth endpoints bind their arguments with {@code @RequestParam}, so they take a form, not JSON.
+	 */
+	private HttpResponse<String> postForm(String path, Map<String, String> fields) throws IOException, InterruptedException {
+		String body = fields.entrySet().stream()
+				.map(field -> URLEncoder.encode(field.getKey(), StandardCharsets.UTF_8) + "="
+						+ URLEncoder.encode(field.getValue(), StandardCharsets.UTF_8))
+				.collect(Collectors.joining("&"));
+		HttpRequest request = HttpRequest.newBuilder(uri(path))
+				.timeout(REQUEST_TIMEOUT)
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+		return http.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	private HttpRequest.Builder authorized(String token, String path) {
+		return HttpRequest.newBuilder(uri(path))
+				.timeout(REQUEST_TIMEOUT)
+				.header("Authorization", "Bearer " + token);
+	}
+
+	private URI uri(String path) {
+		return URI.create(baseUrl + path);
+	}
+}
@@ -0,0 +1,94 @@
+package com.example.demo.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-endpoint latency, throughput and error counts of one load run, printed as a table and written as JSON.
+ */
+final class LoadReport {
+
+	private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+	void record(String endpoint, long latencyNanos, boolean success) {
+		Endpoint stats = endpoints.computeIfAbsent(endpoint, name -> new Endpoint());
+		stats.latency.record(latencyNanos / 1_000);
+		if (!success) {
+			stats.errors.increment();
+		}
+	}
+
+	long requests() {
+		return endpoints.values().stream().mapToLong(endpoint -> endpoint.latency.count()).sum();
+	}
+
+	double errorRate() {
+		long requests = requests();
+		long errors = endpoints.values().stream().mapToLong(endpoint -> endpoint.errors.sum()).sum();
+		return requests == 0 ? 0 : (double) errors / requests;
+	}
+
+	String format(Duration measured) {
+		StringBuilder table = new StringBuilder(String.format("%-32s %9s %9s %9s %9s %9s %8s%n",
+				"endpoint", "requests", "req/s", "p50 ms", "p99 ms", "max ms", "errors"));
+		rows(measured).forEach(row -> table.append(String.format("%-32s %9d %9.1f %9.2f %9.2f %9.2f %7.2f%%%n",
+				row.get("endpoint"), row.get("requests"), row.get("throughput"), row.get("p50Ms"), row.get("p99Ms"),
+				row.get("maxMs"), 100 * (double) row.get("errorRate"))));
+		table.append(String.format("%-32s %9d %9.1f %37.2f%%%n",
+				"total", requests(), requests() / seconds(measured), 100 * errorRate()));
+		return table.toString();
+	}
+
+	void writeJson(Path target, Duration measured, Map<String, Object> settings) throws IOException {
+		Map<String, Object> document = new LinkedHashMap<>();
+		document.put("settings", settings);
+		document.put("durationSeconds", seconds(measured));
+		document.put("requests", requests());
+		document.put("throughput", requests() / seconds(measured));
+		document.put("errorRate", errorRate());
+		document.put("endpoints", rows(measured));
+
+		Files.createDirectories(target.toAbsolutePath().getParent());
+		new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(target.toFile(), document);
+	}
+
+	private List<Map<String, Object>> rows(Duration measured) {
+		return endpoints.entrySet().stream()
+				.sorted(Map.Entry.comparingByKey())
+				.map(entry -> {
+					LatencyHistogram latency = entry.getValue().latency;
+					long requests = latency.count();
+					Map<String, Object> row = new LinkedHashMap<>();
+					row.put("endpoint", entry.getKey());
+					row.put("requests", requests);
+					row.put("throughput", requests / seconds(measured));
+					row.put("p50Ms", latency.percentile(50) / 1000.0);
+					row.put("p99Ms", latency.percentile(99) / 1000.0);
+					row.put("maxMs", latency.max() / 1000.0);
+					row.put("errors", entry.getValue().errors.sum());
+					row.put("errorRate", requests == 0 ? 0.0 : (double) entry.getValue().errors.sum() / requests);
+					return row;
+				})
+				.toList();
+	}
+
+	private static double seconds(Duration duration) {
+		return Math.max(duration.toMillis(), 1) / 1000.0;
+	}
+
+	private static final class Endpoint {
+		private final LatencyHistogram latency = new LatencyHistogram();
+		private final LongAdder errors = new LongAdder();
+	}
+}
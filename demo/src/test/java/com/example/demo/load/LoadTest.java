@@ -0,0 +1,303 @@
+package com.example.demo.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end load run: boots the application on a random port against {@link LoadTestDatabase}, seeds users and
+ * files over HTTP, then drives a weighted mix of authentication, upload, download, listing and share traffic from
+ * {@code load.concurrency} virtual threads. Latency percentiles, throughput and error rates per endpoint are
+ * printed and written to {@code target/load-report.json}. Runs with the {@code prod} profile, so SQL logging
+ * and pool settings match production.
+ *
+ * <p>Excluded from the normal build; run with {@code ./mvnw test -Pload-test}. All knobs are system properties,
+ * e.g. {@code -Dload.duration=PT2M -Dload.concurrency=256 -Dload.mix=download:60,shared:40}.
+ */
+@Tag("load")
+@ActiveProfiles("prod")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class LoadTest {
+
+	private static final String PASSWORD = "load-test-password";
+
+	@LocalServerPort
+	int port;
+
+	@DynamicPropertySource
+	static void properties(DynamicPropertyRegistry registry) throws IOException {
+		LoadTestDatabase database = LoadTestDatabase.get();
+		Path uploadDir = Files.createTempDirectory("load-test-uploads");
+
+		registry.add("spring.datasource.url", database::jdbcUrl);
+		registry.add("spring.datasource.username", database::username);
+		registry.add("spring.datasource.password", database::password);
+		registry.add("file.upload-dir", uploadDir::toString);
+		registry.add("storage.quota.default", () -> "100GB");
+		registry.add("storage.gc.enabled", () -> "false");
+		// Every virtual client comes from the same address; measure the service, not the throttle
+		registry.add("rate-limit.enabled", () -> "false");
+	}
+
+	@Test
+	void mixedTraffic() throws Exception {
+		Settings settings = Settings.fromSystemProperties();
+		LoadClient client = new LoadClient("http://localhost:" + port + "/api");
+		List<String> shareTokens = new CopyOnWriteArrayList<>();
+		List<Account> accounts = seed(client, settings, shareTokens);
+
+		LoadReport report = new LoadReport();
+		long start = System.nanoTime();
+		long measureFrom = start + settings.warmup().toNanos();
+		long deadline = measureFrom + settings.duration().toNanos();
+
+		try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+			List<Future<?>> running = new ArrayList<>();
+			for (int i = 0; i < settings.concurrency(); i++) {
+				running.add(workers.submit(() -> {
+					while (System.nanoTime() < deadline) {
+						Account account = accounts.get(ThreadLocalRandom.current().nextInt(accounts.size()));
+						Operation operation = settings.mix().pick();
+						long began = System.nanoTime();
+						boolean success;
+						try {
+							success = operation.execute(client, account, shareTokens, settings);
+						} catch (IOException ex) {
+							success = false;
+						}
+						if (began >= measureFrom) {
+							report.record(operation.endpoint, System.nanoTime() - began, success);
+						}
+					}
+					return null;
+				}));
+			}
+			for (Future<?> worker : running) {
+				worker.get();
+			}
+		}
+
+		Duration measured = settings.duration();
+		System.out.println(report.format(measured));
+		report.writeJson(Path.of("target", "load-report.json"), measured, settings.describe());
+
+		assertThat(report.requests()).isPositive();
+		assertThat(report.errorRate()).isLessThanOrEqualTo(settings.maxErrorRate());
+	}
+
+	private static List<Account> seed(LoadClient client, Settings settings, List<String> shareTokens)
+			throws IOException, InterruptedException {
+		List<Account> accounts = new ArrayList<>();
+		String run = Long.toString(System.currentTimeMillis(), 36);
+		for (int i = 0; i < settings.users(); i++) {
+			String username = "load-" + run + "-" + i;
+			assertThat(client.register(username, PASSWORD).statusCode()).isEqualTo(200);
+			HttpResponse<String> login = client.authenticate(username, PASSWORD);
+			assertThat(login.statusCode()).isEqualTo(200);
+			JsonNode auth = client.json(login);
+			Account account = new Account(username, auth.get("userId").asLong(), auth.get("token").asText());
+
+			for (int f = 0; f < settings.filesPerUser(); f++) {
+				HttpResponse<String> upload = client.upload(account.token, account.userId, "seed-" + f + ".bin",
+						randomContent(settings.fileSize()));
+				assertThat(upload.statusCode()).isEqualTo(200);
+				account.fileIds.add(client.json(upload).get("fileId").asLong());
+			}
+			HttpResponse<String> shared = client.toggleShare(account.token, account.userId, account.fileIds.get(0));
+			assertThat(shared.statusCode()).isEqualTo(200);
+			shareTokens.add(client.json(shared).get("shareToken").asText());
+			accounts.add(account);
+		}
+		return accounts;
+	}
+
+	private static byte[] randomContent(DataSize size) {
+		byte[] content = new byte[(int) size.toBytes()];
+		ThreadLocalRandom.current().nextBytes(content);
+		return content;
+	}
+
+	private static final class Account {
+
+		private final String username;
+		private final long userId;
+		private volatile String token;
+		private final List<Long> fileIds = new CopyOnWriteArrayList<>();
+
+		private Account(String username, long userId, String token) {
+			this.username = username;
+			this.userId = userId;
+			this.token = token;
+		}
+
+		private long randomFile() {
+			return fileIds.get(ThreadLocalRandom.current().nextInt(fileIds.size()));
+		}
+	}
+
+	private enum Operation {
+
+		LOGIN("POST /auth/authenticate") {
+			@Override
+			boolean run(LoadClient client, Account account, List<String> shareTokens, Settings settings)
+					throws IOException, InterruptedException {
+				HttpResponse<String> response = client.authenticate(account.username, PASSWORD);
+				if (ok(response)) {
+					account.token = client.json(response).get("token").asText();
+				}
+				return ok(response);
+			}
+		},
+		UPLOAD("POST /files/upload") {
+			@Override
+			boolean run(LoadClient client, Account account, List<String> shareTokens, Settings settings)
+					throws IOException, InterruptedException {
+				HttpResponse<String> response = client.upload(account.token, account.userId, "load.bin",
+						randomContent(settings.fileSize()));
+				if (ok(response)) {
+					account.fileIds.add(client.json(response).get("fileId").asLong());
+				}
+				return ok(response);
+			}
+		},
+		DOWNLOAD("GET /files/download/{id}") {
+			@Override
+			boolean run(LoadClient client, Account account, List<String> shareTokens, Settings settings)
+					throws IOException, InterruptedException {
+				return ok(client.download(account.token, account.userId, account.randomFile()));
+			}
+		},
+		LIST("GET /files/user/{id}/page") {
+			@Override
+			boolean run(LoadClient client, Account account, List<String> shareTokens, Settings settings)
+					throws IOException, InterruptedException {
+				return ok(client.listPage(account.token, account.userId, 50));
+			}
+		},
+		SHARE("POST /files/{id}/share") {
+			@Override
+			boolean run(LoadClient client, Account account, List<String> shareTokens, Settings settings)
+					throws IOException, InterruptedException {
+				return ok(client.generateShareLink(account.token, account.userId, account.randomFile()));
+			}
+		},
+		SHARED("GET /files/shared/{token}") {
+			@Override
+			boolean run(LoadClient client, Account account, List<String> shareTokens, Settings settings)
+					throws IOException, InterruptedException {
+				return ok(client.downloadShared(shareTokens.get(ThreadLocalRandom.current().nextInt(shareTokens.size()))));
+			}
+		};
+
+		private final String endpoint;
+
+		Operation(String endpoint) {
+			this.endpoint = endpoint;
+		}
+
+		abstract boolean run(LoadClient client, Account account, List<String> shareTokens, Settings settings)
+				throws IOException, InterruptedException;
+
+		boolean execute(LoadClient client, Account account, List<String> shareTokens, Settings settings)
+				throws IOException {
+			try {
+				return run(client, account, shareTokens, settings);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+
+		private static boolean ok(HttpResponse<?> response) {
+			return response.statusCode() / 100 == 2;
+		}
+	}
+
+	/**
+	 * Weighted choice of operations, e.g. {@code download:35,shared:25,list:25,upload:5,share:5,login:5}.
+	 */
+	private record Mix(Operation[] operations, int[] cumulativeWeights) {
+
+		static Mix parse(String spec) {
+			List<Operation> operations = new ArrayList<>();
+			List<Integer> cumulative = new ArrayList<>();
+			int total = 0;
+			for (String part : spec.split(",")) {
+				String[] entry = part.trim().split(":");
+				int weight = Integer.parseInt(entry[1].trim());
+				if (weight > 0) {
+					total += weight;
+					operations.add(Operation.valueOf(entry[0].trim().toUpperCase()));
+					cumulative.add(total);
+				}
+			}
+			if (operations.isEmpty()) {
+				throw new IllegalArgumentException("load.mix has no operation with a positive weight: " + spec);
+			}
+			return new Mix(operations.toArray(Operation[]::new), cumulative.stream().mapToInt(Integer::intValue).toArray());
+		}
+
+		Operation pick() {
+			int roll = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+			for (int i = 0; i < cumulativeWeights.length; i++) {
+				if (roll < cumulativeWeights[i]) {
+					return operations[i];
+				}
+			}
+			return operations[operations.length - 1];
+		}
+	}
+
+	private record Settings(int users, int filesPerUser, DataSize fileSize, int concurrency, Duration warmup,
+							Duration duration, String mixSpec, Mix mix, double maxErrorRate) {
+
+		static Settings fromSystemProperties() {
+			String mix = System.getProperty("load.mix", "download:35,shared:25,list:25,upload:5,share:5,login:5");
+			return new Settings(
+					Integer.getInteger("load.users", 20),
+					Integer.getInteger("load.files-per-user", 10),
+					DataSize.parse(System.getProperty("load.file-size", "256KB")),
+					Integer.getInteger("load.concurrency", 64),
+					Duration.parse(System.getProperty("load.warmup", "PT10S")),
+					Duration.parse(System.getProperty("load.duration", "PT60S")),
+					mix,
+					Mix.parse(mix),
+					Double.parseDouble(System.getProperty("load.max-error-rate", "0.01")));
+		}
+
+		Map<String, Object> describe() {
+			Map<String, Object> settings = new LinkedHashMap<>();
+			settings.put("users", users);
+			settings.put("filesPerUser", filesPerUser);
+			settings.put("fileSizeBytes", fileSize.toBytes());
+			settings.put("concurrency", concurrency);
+			settings.put("warmupSeconds", warmup.toSeconds());
+			settings.put("durationSeconds", duration.toSeconds());
+			settings.put("mix", mixSpec);
+			return settings;
+		}
+	}
+}
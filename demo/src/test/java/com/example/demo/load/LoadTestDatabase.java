@@ -0,0 +1,50 @@
+package com.example.demo.load;
+
+import com.example.demo.TestDatabase;
+
+/**
+ * The database a load test runs against. Uses the PostgreSQL named by {@code -Dload.datasource.url} (plus
+ * {@code .username} / {@code .password}) when given; otherwise the embedded {@link TestDatabase}.
+ */
+final class LoadTestDatabase {
+
+	private static LoadTestDatabase instance;
+
+	private final String jdbcUrl;
+	private final String username;
+	private final String password;
+
+	private LoadTestDatabase(String jdbcUrl, String username, String password) {
+		this.jdbcUrl = jdbcUrl;
+		this.username = username;
+		this.password = password;
+	}
+
+	static synchronized LoadTestDatabase get() {
+		if (instance == null) {
+			String url = System.getProperty("load.datasource.url");
+			instance = url != null
+					? new LoadTestDatabase(url, System.getProperty("load.datasource.username", "postgres"),
+							System.getProperty("load.datasource.password", "postgres"))
+					: startEmbedded();
+		}
+		return instance;
+	}
+
+	String jdbcUrl() {
+		return jdbcUrl;
+	}
+
+	String username() {
+		return username;
+	}
+
+	String password() {
+		return password;
+	}
+
+	private static LoadTestDatabase startEmbedded() {
+		TestDatabase embedded = TestDatabase.embedded();
+		return new LoadTestDatabase(embedded.jdbcUrl(), embedded.username(), embedded.password());
+	}
+}
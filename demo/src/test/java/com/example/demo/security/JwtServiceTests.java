@@ -0,0 +1,68 @@
+package com.example.demo.security;
+
+import com.example.demo.model.entity.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtServiceTests {
+
+	private JwtService jwtService;
+
+	@BeforeEach
+	void setUp() {
+		jwtService = new JwtService();
+		ReflectionTestUtils.setField(jwtService, "jwtSecret", "yourSecretKey123456789yourSecretKey123456789yourSecretKey123456789");
+		ReflectionTestUtils.setField(jwtService, "jwtExpiration", 60_000L);
+		jwtService.init();
+	}
+
+	@Test
+	void shareTokenCarriesTheLinkTerms() {
+		Instant expiresAt = Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS);
+		String token = jwtService.generateShareToken("link-1", 42L, "v1", expiresAt, 3);
+
+		Claims claims = jwtService.parseShareClaims(token);
+		assertThat(claims.getId()).isEqualTo("link-1");
+		assertThat(claims.get("fid", Long.class)).isEqualTo(42L);
+		assertThat(claims.get("sv", String.class)).isEqualTo("v1");
+		assertThat(claims.get("max", Integer.class)).isEqualTo(3);
+		assertThat(claims.getExpiration().toInstant()).isEqualTo(expiresAt);
+	}
+
+	@Test
+	void rejectsTamperedAndExpiredShareTokens() {
+		String token = jwtService.generateShareToken("link-1", 42L, "v1", Instant.now().plus(1, ChronoUnit.HOURS), null);
+		String[] parts = token.split("\\.");
+		String forged = parts[0] + "." + jwtService.generateShareToken("link-1", 43L, "v1",
+				Instant.now().plus(1, ChronoUnit.HOURS), null).split("\\.")[1] + "." + parts[2];
+		assertThatThrownBy(() -> jwtService.parseShareClaims(forged)).isInstanceOf(JwtException.class);
+
+		String expired = jwtService.generateShareToken(
+				"link-2", 42L, "v1", Instant.now().minus(1, ChronoUnit.MINUTES), null);
+		assertThatThrownBy(() -> jwtService.parseShareClaims(expired)).isInstanceOf(ExpiredJwtException.class);
+	}
+
+	@Test
+	void shareAndBearerTokensAreNotInterchangeable() {
+		User user = new User();
+		user.setId(7L);
+		user.setUsername("alice");
+		user.setRole("user");
+		String bearer = jwtService.generateToken(user);
+		assertThatThrownBy(() -> jwtService.parseShareClaims(bearer)).isInstanceOf(JwtException.class);
+
+		String share = jwtService.generateShareToken("link-1", 42L, "v1", Instant.now().plus(1, ChronoUnit.HOURS), null);
+		assertThat(jwtService.toPrincipal(jwtService.parseClaims(share))).isNull();
+		assertThat(jwtService.toPrincipal(jwtService.parseClaims(bearer))).isNotNull();
+	}
+}
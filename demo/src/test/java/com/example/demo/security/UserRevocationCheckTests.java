@@ -0,0 +1,53 @@
+package com.example.demo.security;
+
+import com.example.demo.config.CacheConfig;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserRevocationCheckTests {
+
+	private UserRepository userRepository;
+	private UserRevocationCheck check;
+
+	@BeforeEach
+	void setUp() {
+		userRepository = mock(UserRepository.class);
+		CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+		new CacheConfig().authUserCacheCustomizer(100, Duration.ofMinutes(1)).customize(cacheManager);
+		check = new UserRevocationCheck(userRepository, cacheManager);
+	}
+
+	@Test
+	void laterRequestsAreAnsweredFromTheCache() {
+		when(userRepository.findRoleById(7L)).thenReturn(Optional.of("user"));
+		AuthenticatedUser principal = new AuthenticatedUser(7L, "alice", "user");
+
+		assertThat(check.isStillValid(principal)).isTrue();
+		assertThat(check.isStillValid(principal)).isTrue();
+
+		verify(userRepository, times(1)).findRoleById(7L);
+	}
+
+	@Test
+	void deletedAndReRoledUsersAreRejectedAndCached() {
+		when(userRepository.findRoleById(7L)).thenReturn(Optional.of("admin"));
+		when(userRepository.findRoleById(8L)).thenReturn(Optional.empty());
+
+		assertThat(check.isStillValid(new AuthenticatedUser(7L, "alice", "user"))).isFalse();
+		assertThat(check.isStillValid(new AuthenticatedUser(8L, "bob", "user"))).isFalse();
+		assertThat(check.isStillValid(new AuthenticatedUser(8L, "bob", "user"))).isFalse();
+
+		verify(userRepository, times(1)).findRoleById(8L);
+	}
+}
@@ -0,0 +1,217 @@
+package com.example.demo.service;
+
+import com.example.demo.TestDatabase;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.model.dto.BulkItemResult;
+import com.example.demo.model.dto.FileDTO;
+import com.example.demo.model.dto.HotFileDTO;
+import com.example.demo.model.entity.File;
+import com.example.demo.model.entity.StoredBlob;
+import com.example.demo.model.entity.User;
+import com.example.demo.repository.FileRepository;
+import com.example.demo.repository.FileRepositoryCustom.RemovedFile;
+import com.example.demo.repository.StoredBlobRepository;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Bulk delete / share and the batched repository statements behind them, against PostgreSQL.
+ */
+@SpringBootTest
+@WithMockUser(roles = "user")
+class BulkFileOperationsTests {
+
+	private static final long MISSING_ID = Long.MAX_VALUE;
+
+	@Autowired
+	FileService fileService;
+
+	@Autowired
+	FileRepository fileRepository;
+
+	@Autowired
+	StoredBlobRepository storedBlobRepository;
+
+	@Autowired
+	UserRepository userRepository;
+
+	@Autowired
+	FileAccessTracker fileAccessTracker;
+
+	private User alice;
+	private User bob;
+	private byte[] content;
+
+	@DynamicPropertySource
+	static void properties(DynamicPropertyRegistry registry) throws IOException {
+		TestDatabase.embedded().register(registry);
+		String uploadDir = Files.createTempDirectory("bulk-test-uploads").toString();
+		registry.add("file.upload-dir", () -> uploadDir);
+		registry.add("storage.gc.enabled", () -> "false");
+	}
+
+	@BeforeEach
+	void setUp() {
+		alice = createUser("alice");
+		bob = createUser("bob");
+		content = ("bulk test " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void deleteFilesSkipsMissingAndForeignIdsAndKeepsSharedBlobs() {
+		FileDTO first = upload(alice);
+		FileDTO second = upload(alice);
+		FileDTO foreign = upload(bob);
+		String hash = contentHashOf(first);
+		assertThat(blob(hash).getRefCount()).isEqualTo(3);
+
+		List<BulkItemResult> results = fileService.deleteFiles(
+				List.of(first.getFileId(), foreign.getFileId(), MISSING_ID, first.getFileId()), alice.getId());
+
+		assertThat(results).extracting(BulkItemResult::getFileId, BulkItemResult::getStatus).containsExactly(
+				tuple(first.getFileId(), BulkItemResult.Status.OK),
+				tuple(foreign.getFileId(), BulkItemResult.Status.FORBIDDEN),
+				tuple(MISSING_ID, BulkItemResult.Status.NOT_FOUND));
+		assertThat(fileRepository.existsById(first.getFileId())).isFalse();
+		assertThat(fileRepository.existsById(foreign.getFileId())).isTrue();
+		assertThat(blob(hash).getRefCount()).isEqualTo(2);
+
+		fileService.deleteFiles(List.of(second.getFileId()), alice.getId());
+		assertThat(blob(hash).getRefCount()).isEqualTo(1);
+
+		fileService.deleteFiles(List.of(foreign.getFileId()), bob.getId());
+		assertThat(storedBlobRepository.findById(hash)).isEmpty();
+	}
+
+	@Test
+	void downloadCountsOfDeletedFilesAreDropped() {
+		FileDTO kept = upload(alice);
+		FileDTO deleted = upload(alice);
+		fileAccessTracker.recordDownload(kept.getFileId(), false);
+		fileAccessTracker.recordDownload(deleted.getFileId(), false);
+
+		fileService.deleteFiles(List.of(deleted.getFileId()), alice.getId());
+		List<HotFileDTO> hot = fileAccessTracker.hotFiles(1000, true);
+
+		assertThat(hot).extracting(HotFileDTO::getFileId)
+				.contains(kept.getFileId())
+				.doesNotContain(deleted.getFileId());
+	}
+
+	@Test
+	void setSharingIssuesTokensOnlyForFilesThatChange() {
+		FileDTO unshared = upload(alice);
+		FileDTO shared = fileService.toggleFileSharing(upload(alice).getFileId(), alice.getId());
+		FileDTO foreign = upload(bob);
+
+		List<BulkItemResult> results = fileService.setSharing(
+				List.of(unshared.getFileId(), shared.getFileId(), foreign.getFileId(), MISSING_ID), alice.getId(), true);
+
+		assertThat(results).extracting(BulkItemResult::getStatus).containsExactly(BulkItemResult.Status.OK,
+				BulkItemResult.Status.OK, BulkItemResult.Status.FORBIDDEN, BulkItemResult.Status.NOT_FOUND);
+		File nowShared = fileRepository.findById(unshared.getFileId()).orElseThrow();
+		assertThat(nowShared.isShareEnabled()).isTrue();
+		assertThat(results.get(0).getShareUrl()).endsWith("/files/shared/" + nowShared.getShareToken());
+		assertThat(fileRepository.findById(shared.getFileId()).orElseThrow().getShareToken())
+				.isEqualTo(shared.getShareToken());
+		assertThat(fileRepository.findById(foreign.getFileId()).orElseThrow().isShareEnabled()).isFalse();
+
+		fileService.setSharing(List.of(unshared.getFileId(), shared.getFileId()), alice.getId(), false);
+
+		assertThat(fileRepository.findAllById(List.of(unshared.getFileId(), shared.getFileId())))
+				.allSatisfy(file -> {
+					assertThat(file.isShareEnabled()).isFalse();
+					assertThat(file.getShareToken()).isNull();
+				});
+	}
+
+	@Test
+	void signedLinksStayRevokedWhenSharingIsTurnedBackOn() {
+		FileDTO file = upload(alice);
+		String token = signedLinkToken(file);
+		assertThat(fileService.downloadSignedShare(token, download -> true).getFileName()).isEqualTo("notes.txt");
+
+		fileService.setSharing(List.of(file.getFileId()), alice.getId(), false);
+		fileService.setSharing(List.of(file.getFileId()), alice.getId(), true);
+
+		assertThatThrownBy(() -> fileService.downloadSignedShare(token, download -> true))
+				.isInstanceOf(ResourceNotFoundException.class);
+		assertThat(fileService.downloadSignedShare(signedLinkToken(file), download -> true)).isNotNull();
+	}
+
+	@Test
+	void releaseAllDeletesOnlyBlobsThatReachZero() {
+		String kept = UUID.randomUUID().toString().replace("-", "");
+		String dropped = UUID.randomUUID().toString().replace("-", "");
+		for (int i = 0; i < 3; i++) {
+			storedBlobRepository.acquire(kept, 10);
+		}
+		storedBlobRepository.acquire(dropped, 10);
+		storedBlobRepository.acquire(dropped, 10);
+
+		List<String> released = storedBlobRepository.releaseAll(Map.of(kept, 2L, dropped, 2L, "unknown", 1L));
+
+		assertThat(released).containsExactly(dropped);
+		assertThat(blob(kept).getRefCount()).isEqualTo(1);
+		assertThat(storedBlobRepository.findById(dropped)).isEmpty();
+	}
+
+	@Test
+	void deleteByContentHashesRemovesEveryOwnersRows() {
+		FileDTO own = upload(alice);
+		FileDTO foreign = upload(bob);
+
+		List<RemovedFile> removed = fileRepository.deleteByContentHashes(List.of(contentHashOf(own), "unknown"));
+
+		assertThat(removed).extracting(RemovedFile::fileId).containsExactlyInAnyOrder(own.getFileId(), foreign.getFileId());
+		assertThat(removed).extracting(RemovedFile::userId).containsExactlyInAnyOrder(alice.getId(), bob.getId());
+		assertThat(fileRepository.findAllById(List.of(own.getFileId(), foreign.getFileId()))).isEmpty();
+	}
+
+	private User createUser(String name) {
+		String unique = name + "-" + UUID.randomUUID();
+		User user = new User();
+		user.setUsername(unique);
+		user.setEmail(unique + "@example.com");
+		user.setPasswordHash("not-used");
+		user.setRole("user");
+		return userRepository.save(user);
+	}
+
+	private FileDTO upload(User owner) {
+		return fileService.uploadFile(new MockMultipartFile("file", "notes.txt", "text/plain", content), owner.getId());
+	}
+
+	private String signedLinkToken(FileDTO file) {
+		String url = fileService.createSignedShareLink(file.getFileId(), alice.getId(), Duration.ofHours(1), null)
+				.getShareUrl();
+		return url.substring(url.lastIndexOf('/') + 1);
+	}
+
+	private String contentHashOf(FileDTO file) {
+		return fileRepository.findById(file.getFileId()).orElseThrow().getContentHash();
+	}
+
+	private StoredBlob blob(String hash) {
+		return storedBlobRepository.findById(hash).orElseThrow();
+	}
+}
@@ -0,0 +1,153 @@
+package com.example.demo.service;
+
+import com.example.demo.TestDatabase;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.model.dto.FileDTO;
+import com.example.demo.model.dto.UploadSessionDTO;
+import com.example.demo.model.entity.UploadSession;
+import com.example.demo.model.entity.User;
+import com.example.demo.repository.FileRepository;
+import com.example.demo.repository.UploadSessionRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.storage.BlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Resumable upload sessions against PostgreSQL: completion, expiry and their quota and staging cleanup.
+ */
+@SpringBootTest
+class ChunkedUploadServiceTests {
+
+	private static final long SIZE = 1000;
+
+	@Autowired
+	ChunkedUploadService chunkedUploadService;
+
+	@Autowired
+	UploadSessionRepository uploadSessionRepository;
+
+	@Autowired
+	UserRepository userRepository;
+
+	@Autowired
+	BlobStore blobStore;
+
+	@Autowired
+	FileRepository fileRepository;
+
+	@Autowired
+	TransactionTemplate transactionTemplate;
+
+	private User user;
+
+	@DynamicPropertySource
+	static void properties(DynamicPropertyRegistry registry) throws IOException {
+		TestDatabase.embedded().register(registry);
+		String uploadDir = Files.createTempDirectory("chunked-test-uploads").toString();
+		registry.add("file.upload-dir", () -> uploadDir);
+		registry.add("storage.gc.enabled", () -> "false");
+	}
+
+	@BeforeEach
+	void setUp() {
+		String unique = "uploader-" + UUID.randomUUID();
+		User created = new User();
+		created.setUsername(unique);
+		created.setEmail(unique + "@example.com");
+		created.setPasswordHash("not-used");
+		created.setRole("user");
+		user = userRepository.save(created);
+	}
+
+	@Test
+	void aRolledBackCompletionLeavesTheSessionAndItsBytesForARetry() throws IOException {
+		byte[] content = ("chunked " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+		UploadSessionDTO upload = chunkedUploadService.initUpload(user.getId(), "retry.txt", null, content.length);
+		chunkedUploadService.writeChunk(upload.getUploadId(), user.getId(), 0, new ByteArrayInputStream(content));
+		Path staged = stagedFile(upload);
+
+		transactionTemplate.executeWithoutResult(status -> {
+			FileDTO file = chunkedUploadService.completeUpload(upload.getUploadId(), user.getId());
+			assertThat(file.getFileId()).isNotNull();
+			status.setRollbackOnly();
+		});
+
+		assertThat(Files.readAllBytes(staged)).isEqualTo(content);
+		assertThat(staged.resolveSibling(staged.getFileName() + ".keep")).doesNotExist();
+		assertThat(uploadSessionRepository.existsById(upload.getUploadId())).isTrue();
+
+		FileDTO file = chunkedUploadService.completeUpload(upload.getUploadId(), user.getId());
+
+		assertThat(fileRepository.existsById(file.getFileId())).isTrue();
+		assertThat(uploadSessionRepository.existsById(upload.getUploadId())).isFalse();
+		assertThat(staged).doesNotExist();
+		assertThat(staged.resolveSibling(staged.getFileName() + ".keep")).doesNotExist();
+		assertThat(storageUsed()).isEqualTo(content.length);
+	}
+
+	@Test
+	void expiredSessionsReleaseTheirReservationAndStagedBytes() {
+		UploadSessionDTO expiring = chunkedUploadService.initUpload(user.getId(), "old.bin", null, SIZE);
+		UploadSessionDTO active = chunkedUploadService.initUpload(user.getId(), "new.bin", null, SIZE);
+		chunkedUploadService.writeChunk(expiring.getUploadId(), user.getId(), 0, new ByteArrayInputStream(new byte[100]));
+		Path staged = stagedFile(expiring);
+		assertThat(storageUsed()).isEqualTo(2 * SIZE);
+
+		expire(expiring);
+		assertThatThrownBy(() -> chunkedUploadService.getUploadStatus(expiring.getUploadId(), user.getId()))
+				.isInstanceOf(ResourceNotFoundException.class);
+
+		chunkedUploadService.expireSessions();
+
+		assertThat(uploadSessionRepository.existsById(expiring.getUploadId())).isFalse();
+		assertThat(staged).doesNotExist();
+		assertThat(storageUsed()).isEqualTo(SIZE);
+		assertThat(chunkedUploadService.getUploadStatus(active.getUploadId(), user.getId()).getReceivedBytes()).isZero();
+		assertThat(stagedFile(active)).exists();
+	}
+
+	@Test
+	void everyChunkPushesTheExpiryBack() {
+		UploadSessionDTO upload = chunkedUploadService.initUpload(user.getId(), "slow.bin", null, SIZE);
+		LocalDateTime initial = session(upload).getExpiresAt();
+
+		chunkedUploadService.writeChunk(upload.getUploadId(), user.getId(), 0, new ByteArrayInputStream(new byte[100]));
+
+		assertThat(session(upload).getExpiresAt()).isAfter(initial);
+	}
+
+	private void expire(UploadSessionDTO upload) {
+		UploadSession session = session(upload);
+		session.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+		uploadSessionRepository.save(session);
+	}
+
+	private UploadSession session(UploadSessionDTO upload) {
+		return uploadSessionRepository.findById(upload.getUploadId()).orElseThrow();
+	}
+
+	private Path stagedFile(UploadSessionDTO upload) {
+		return blobStore.stagingPath(session(upload).getStorageName());
+	}
+
+	private long storageUsed() {
+		return userRepository.findById(user.getId()).orElseThrow().getStorageUsed();
+	}
+}
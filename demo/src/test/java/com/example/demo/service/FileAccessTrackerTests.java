@@ -0,0 +1,89 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.FileAccessStatsRepository;
+import com.example.demo.repository.FileAccessStatsRepositoryCustom.AccessDelta;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class FileAccessTrackerTests {
+
+	private FileAccessStatsRepository statsRepository;
+	private FileAccessTracker tracker;
+	private final List<List<AccessDelta>> written = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		statsRepository = mock(FileAccessStatsRepository.class);
+		tracker = new FileAccessTracker(statsRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+				new SimpleMeterRegistry(), true, Duration.ofMinutes(10));
+	}
+
+	@Test
+	void aFailedFlushIsRetriedWithTheAccumulatedDelta() {
+		failNextFlush();
+		tracker.recordDownload(1L, false);
+		tracker.recordDownload(1L, true);
+		tracker.flush();
+
+		tracker.recordDownload(1L, false);
+		recordFlushes();
+		tracker.flush();
+
+		assertThat(written).hasSize(1);
+		assertThat(written.get(0)).singleElement().satisfies(delta -> {
+			assertThat(delta.fileId()).isEqualTo(1L);
+			assertThat(delta.downloads()).isEqualTo(3);
+			assertThat(delta.sharedDownloads()).isEqualTo(1);
+		});
+
+		tracker.flush();
+		assertThat(written).hasSize(1);
+	}
+
+	@Test
+	void shutdownFlushesPendingCounts() {
+		recordFlushes();
+		tracker.recordDownload(1L, false);
+		tracker.recordDownload(2L, true);
+
+		tracker.shutdown();
+
+		assertThat(written).singleElement().satisfies(deltas ->
+				assertThat(deltas).extracting(AccessDelta::fileId).containsExactlyInAnyOrder(1L, 2L));
+	}
+
+	@Test
+	void nothingIsWrittenWithoutDownloads() {
+		tracker.flush();
+
+		verify(statsRepository, never()).addAccesses(anyList());
+	}
+
+	private void failNextFlush() {
+		doAnswer(invocation -> {
+			throw new DataAccessResourceFailureException("database down");
+		}).when(statsRepository).addAccesses(anyList());
+	}
+
+	private void recordFlushes() {
+		doAnswer(invocation -> {
+			written.add(List.copyOf(invocation.<List<AccessDelta>>getArgument(0)));
+			return null;
+		}).when(statsRepository).addAccesses(anyList());
+	}
+}
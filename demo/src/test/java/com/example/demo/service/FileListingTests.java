@@ -0,0 +1,99 @@
+package com.example.demo.service;
+
+import com.example.demo.TestDatabase;
+import com.example.demo.model.dto.FileListItem;
+import com.example.demo.model.dto.FileListQuery;
+import com.example.demo.model.dto.FilePage;
+import com.example.demo.model.entity.File;
+import com.example.demo.model.entity.User;
+import com.example.demo.repository.FileRepository;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Keyset pages of a user's files against PostgreSQL, where legacy rows may have no size.
+ */
+@SpringBootTest
+class FileListingTests {
+
+	@Autowired
+	FileService fileService;
+
+	@Autowired
+	FileRepository fileRepository;
+
+	@Autowired
+	UserRepository userRepository;
+
+	private User user;
+
+	@DynamicPropertySource
+	static void properties(DynamicPropertyRegistry registry) throws IOException {
+		TestDatabase.embedded().register(registry);
+		String uploadDir = Files.createTempDirectory("listing-test-uploads").toString();
+		registry.add("file.upload-dir", () -> uploadDir);
+		registry.add("storage.gc.enabled", () -> "false");
+	}
+
+	@BeforeEach
+	void setUp() {
+		String unique = "lister-" + UUID.randomUUID();
+		User created = new User();
+		created.setUsername(unique);
+		created.setEmail(unique + "@example.com");
+		created.setPasswordHash("not-used");
+		created.setRole("user");
+		user = userRepository.save(created);
+	}
+
+	@Test
+	void filesWithoutASizeArePagedFirstDescendingAndLastAscending() {
+		long unsized1 = file(null);
+		long small = file(5L);
+		long large1 = file(10L);
+		long unsized2 = file(null);
+		long large2 = file(10L);
+		long medium = file(7L);
+
+		assertThat(allPages(true)).containsExactly(unsized2, unsized1, large2, large1, medium, small);
+		assertThat(allPages(false)).containsExactly(small, medium, large1, large2, unsized1, unsized2);
+	}
+
+	private List<Long> allPages(boolean descending) {
+		List<Long> ids = new ArrayList<>();
+		String cursor = null;
+		do {
+			FilePage page = fileService.listUserFiles(user.getId(), FileListQuery.builder()
+					.sort(FileListQuery.SortField.SIZE)
+					.descending(descending)
+					.cursor(cursor)
+					.limit(2)
+					.build());
+			page.getItems().stream().map(FileListItem::getFileId).forEach(ids::add);
+			cursor = page.getNextCursor();
+		} while (cursor != null);
+		return ids;
+	}
+
+	private long file(Long size) {
+		File file = new File();
+		file.setUser(user);
+		file.setFileName("legacy.bin");
+		file.setFilePath("legacy/" + UUID.randomUUID());
+		file.setFileSize(size);
+		return fileRepository.save(file).getFileId();
+	}
+}
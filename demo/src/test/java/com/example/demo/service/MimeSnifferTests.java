@@ -0,0 +1,49 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MimeSnifferTests {
+
+	@Test
+	void recognisesBinarySignatures() {
+		assertThat(detect(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0x00)).isEqualTo("image/png");
+		assertThat(detect(0xFF, 0xD8, 0xFF, 0xE0)).isEqualTo("image/jpeg");
+		assertThat(detect('%', 'P', 'D', 'F', '-', '1', '.', '7')).isEqualTo("application/pdf");
+		assertThat(detect('P', 'K', 0x03, 0x04, 0x14)).isEqualTo("application/zip");
+		assertThat(detect(0x00, 0x01, 0x02, 0x03)).isEqualTo(MimeSniffer.OCTET_STREAM);
+	}
+
+	@Test
+	void classifiesTextByContent() {
+		assertThat(detect("plain words")).isEqualTo("text/plain");
+		assertThat(detect("  {\"a\": 1}")).isEqualTo("application/json");
+		assertThat(detect("<?xml version=\"1.0\"?>")).isEqualTo("application/xml");
+		assertThat(detect("<!DOCTYPE html><html>")).isEqualTo("text/html");
+	}
+
+	@Test
+	void toleratesAMultiByteCharacterCutAtTheEndOfTheHeader() {
+		byte[] text = "naïve café".getBytes(StandardCharsets.UTF_8);
+		byte[] truncated = Arrays.copyOf(text, text.length - 1);
+
+		assertThat(MimeSniffer.detect(truncated, truncated.length)).isEqualTo("text/plain");
+	}
+
+	private static String detect(String text) {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		return MimeSniffer.detect(bytes, bytes.length);
+	}
+
+	private static String detect(int... bytes) {
+		byte[] header = new byte[bytes.length];
+		for (int i = 0; i < bytes.length; i++) {
+			header[i] = (byte) bytes[i];
+		}
+		return MimeSniffer.detect(header, header.length);
+	}
+}
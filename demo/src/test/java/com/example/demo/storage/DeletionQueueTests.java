@@ -0,0 +1,108 @@
+package com.example.demo.storage;
+
+import com.example.demo.TestDatabase;
+import com.example.demo.model.entity.StorageTombstone;
+import com.example.demo.repository.StorageTombstoneRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Draining tombstones against PostgreSQL, where the batch claims rows with {@code SKIP LOCKED} and each row runs
+ * in a transaction of its own.
+ */
+@SpringBootTest
+class DeletionQueueTests {
+
+	@Autowired
+	DeletionQueue deletionQueue;
+
+	@Autowired
+	StorageBackend storageBackend;
+
+	@Autowired
+	StorageTombstoneRepository tombstoneRepository;
+
+	@Autowired
+	TransactionTemplate transactionTemplate;
+
+	@DynamicPropertySource
+	static void properties(DynamicPropertyRegistry registry) throws IOException {
+		TestDatabase.embedded().register(registry);
+		String uploadDir = Files.createTempDirectory("deletion-test-uploads").toString();
+		registry.add("file.upload-dir", () -> uploadDir);
+		registry.add("storage.gc.enabled", () -> "false");
+		// A failed row is retried an hour later, not while the test is still looking at it
+		registry.add("storage.deletion.initial-backoff", () -> "PT1H");
+	}
+
+	@Test
+	void drainDeletesUnreferencedBlobsAndTheirTombstones() throws Exception {
+		String contentHash = storeBlob();
+
+		transactionTemplate.executeWithoutResult(status -> deletionQueue.deleteBlobAfterCommit(contentHash));
+
+		awaitDrained(contentHash);
+		assertThat(storageBackend.stat(contentHash)).isEmpty();
+	}
+
+	@Test
+	void aFailingRowIsRescheduledWithoutHoldingUpTheBatch() throws Exception {
+		// A non-empty directory cannot be deleted by Files.deleteIfExists
+		Path directory = Files.createTempDirectory("deletion-test-undeletable");
+		Files.writeString(directory.resolve("child"), "keep");
+		String contentHash = storeBlob();
+
+		transactionTemplate.executeWithoutResult(status -> {
+			deletionQueue.deleteLocalFileAfterCommit(directory);
+			deletionQueue.deleteBlobAfterCommit(contentHash);
+		});
+
+		awaitDrained(contentHash);
+		assertThat(storageBackend.stat(contentHash)).isEmpty();
+		assertThat(tombstone(directory.toAbsolutePath().toString())).hasValueSatisfying(failed -> {
+			assertThat(failed.getAttempts()).isEqualTo(1);
+			assertThat(failed.getLastError()).contains(directory.getFileName().toString());
+		});
+		assertThat(directory).isDirectory();
+	}
+
+	private String storeBlob() throws IOException {
+		String contentHash = (UUID.randomUUID().toString() + UUID.randomUUID()).replace("-", "");
+		byte[] content = "deletion test".getBytes(StandardCharsets.UTF_8);
+		storageBackend.put(contentHash, new ByteArrayInputStream(content), content.length);
+		assertThat(storageBackend.stat(contentHash)).isPresent();
+		return contentHash;
+	}
+
+	/**
+	 * The after-commit worker and the sweep skip rows the other has claimed, so sweep until the row is gone.
+	 */
+	private void awaitDrained(String storageKey) throws InterruptedException {
+		long deadline = System.nanoTime() + 10_000_000_000L;
+		while (tombstone(storageKey).isPresent() && System.nanoTime() < deadline) {
+			deletionQueue.sweep();
+			Thread.sleep(50);
+		}
+		assertThat(tombstone(storageKey)).isEmpty();
+	}
+
+	private Optional<StorageTombstone> tombstone(String storageKey) {
+		return tombstoneRepository.findAll().stream()
+				.filter(tombstone -> tombstone.getStorageKey().equals(storageKey))
+				.findFirst();
+	}
+}
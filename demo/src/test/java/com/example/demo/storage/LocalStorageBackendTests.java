@@ -0,0 +1,99 @@
+package com.example.demo.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalStorageBackendTests {
+
+	private static final String KEY = "abcdef0123456789";
+	private static final byte[] CONTENT = "hello, storage backend".getBytes(StandardCharsets.UTF_8);
+
+	@TempDir
+	Path root;
+
+	@Test
+	void flatBackendStoresObjectsDirectlyUnderRoot() throws IOException {
+		StorageBackend backend = new LocalStorageBackend(root);
+		backend.put(KEY, new ByteArrayInputStream(CONTENT), CONTENT.length);
+
+		assertThat(root.resolve(KEY)).exists();
+		assertRoundTrip(backend);
+	}
+
+	@Test
+	void shardedBackendNestsObjectsByKeyPrefix() throws IOException {
+		StorageBackend backend = new ShardedLocalStorageBackend(root, 2, 2);
+		backend.put(KEY, new ByteArrayInputStream(CONTENT), CONTENT.length);
+
+		assertThat(root.resolve("ab").resolve("cd").resolve(KEY)).exists();
+		assertRoundTrip(backend);
+	}
+
+	@Test
+	void putFileMovesTheSourceIntoPlace() throws IOException {
+		StorageBackend backend = new ShardedLocalStorageBackend(root, 2, 2);
+		Path source = Files.write(root.resolve(".staged"), CONTENT);
+
+		backend.putFile(KEY, source);
+
+		assertThat(source).doesNotExist();
+		assertRoundTrip(backend);
+	}
+
+	@Test
+	void shardedBackendListsObjectsInKeyOrder() throws IOException {
+		StorageBackend backend = new ShardedLocalStorageBackend(root, 2, 2);
+		for (String key : new String[] {"ff00aa", KEY, "0a1b2c", "abce00"}) {
+			backend.put(key, new ByteArrayInputStream(CONTENT), CONTENT.length);
+		}
+
+		try (Stream<StorageObject> objects = backend.list()) {
+			assertThat(objects.map(StorageObject::key)).containsExactly("0a1b2c", KEY, "abce00", "ff00aa");
+		}
+	}
+
+	@Test
+	void shardedBackendMovesFlatObjectsIntoShards() throws IOException {
+		String hash = "ab".repeat(32);
+		new LocalStorageBackend(root).put(hash, new ByteArrayInputStream(CONTENT), CONTENT.length);
+		Files.write(root.resolve(hash + ".t256.jpg"), CONTENT);
+		Files.write(root.resolve("legacy-upload.pdf"), CONTENT);
+
+		ShardedLocalStorageBackend backend = new ShardedLocalStorageBackend(root, 2, 2);
+		assertThat(backend.migrateFlatObjects()).isEqualTo(2);
+
+		assertThat(root.resolve("ab").resolve("ab").resolve(hash)).exists();
+		assertThat(root.resolve("ab").resolve("ab").resolve(hash + ".t256.jpg")).exists();
+		assertThat(root.resolve("legacy-upload.pdf")).exists();
+		try (Stream<StorageObject> objects = backend.list()) {
+			assertThat(objects.map(StorageObject::key)).containsExactly(hash, hash + ".t256.jpg");
+		}
+	}
+
+	private void assertRoundTrip(StorageBackend backend) throws IOException {
+		try (InputStream in = backend.get(KEY)) {
+			assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+		}
+		try (InputStream in = backend.getRange(KEY, 7, 7)) {
+			assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("storage");
+		}
+		try (InputStream in = backend.getRange(KEY, 15, -1)) {
+			assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("backend");
+		}
+		assertThat(backend.stat(KEY)).hasValueSatisfying(object -> assertThat(object.size()).isEqualTo(CONTENT.length));
+
+		assertThat(backend.delete(KEY)).isTrue();
+		assertThat(backend.stat(KEY)).isEmpty();
+		assertThat(backend.delete(KEY)).isFalse();
+	}
+}
@@ -0,0 +1,127 @@
+package com.example.demo.storage;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the S3 backend against a MinIO container; skipped when no Docker daemon is available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class S3StorageBackendTests {
+
+	private static final String BUCKET = "linkfile-test";
+	private static final String KEY = "abcdef0123456789";
+	private static final byte[] CONTENT = "hello, storage backend".getBytes(StandardCharsets.UTF_8);
+
+	@Container
+	static final MinIOContainer MINIO = new MinIOContainer("minio/minio:RELEASE.2024-10-13T13-34-11Z");
+
+	private static S3Client s3;
+
+	@TempDir
+	Path tempDir;
+
+	@BeforeAll
+	static void createBucket() {
+		s3 = S3Client.builder()
+				.endpointOverride(URI.create(MINIO.getS3URL()))
+				.region(Region.US_EAST_1)
+				.credentialsProvider(StaticCredentialsProvider.create(
+						AwsBasicCredentials.create(MINIO.getUserName(), MINIO.getPassword())))
+				.serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+				.build();
+		s3.createBucket(CreateBucketRequest.builder().bucket(BUCKET).build());
+	}
+
+	@AfterAll
+	static void closeClient() {
+		s3.close();
+	}
+
+	@Test
+	void storesReadsAndDeletesObjects() throws IOException {
+		StorageBackend backend = new S3StorageBackend(s3, BUCKET, "round-trip/");
+		backend.put(KEY, new ByteArrayInputStream(CONTENT), CONTENT.length);
+
+		try (InputStream in = backend.get(KEY)) {
+			assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+		}
+		try (InputStream in = backend.getRange(KEY, 7, 7)) {
+			assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("storage");
+		}
+		try (InputStream in = backend.getRange(KEY, 15, -1)) {
+			assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("backend");
+		}
+		assertThat(backend.stat(KEY)).hasValueSatisfying(object -> assertThat(object.size()).isEqualTo(CONTENT.length));
+
+		assertThat(backend.delete(KEY)).isTrue();
+		assertThat(backend.stat(KEY)).isEmpty();
+		assertThatThrownBy(() -> backend.get(KEY)).isInstanceOf(FileNotFoundException.class);
+	}
+
+	@Test
+	void putFileUploadsAndConsumesTheSource() throws IOException {
+		StorageBackend backend = new S3StorageBackend(s3, BUCKET, "put-file/");
+		Path source = Files.write(tempDir.resolve("staged"), CONTENT);
+
+		backend.putFile(KEY, source);
+
+		assertThat(source).doesNotExist();
+		try (InputStream in = backend.get(KEY)) {
+			assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+		}
+	}
+
+	@Test
+	void listsObjectsUnderThePrefixInKeyOrder() throws IOException {
+		StorageBackend backend = new S3StorageBackend(s3, BUCKET, "listing/");
+		StorageBackend other = new S3StorageBackend(s3, BUCKET, "other/");
+		for (String key : new String[] {"ff00aa", KEY, "0a1b2c", "abce00"}) {
+			backend.put(key, new ByteArrayInputStream(CONTENT), CONTENT.length);
+		}
+		other.put("000000", new ByteArrayInputStream(CONTENT), CONTENT.length);
+
+		try (Stream<StorageObject> objects = backend.list()) {
+			assertThat(objects.map(StorageObject::key)).containsExactly("0a1b2c", KEY, "abce00", "ff00aa");
+		}
+	}
+
+	@Test
+	void closingAPartiallyReadStreamDoesNotDrainTheObject() throws IOException {
+		StorageBackend backend = new S3StorageBackend(s3, BUCKET, "abort/");
+		byte[] large = new byte[8 * 1024 * 1024];
+		backend.put(KEY, new ByteArrayInputStream(large), large.length);
+
+		try (InputStream in = backend.get(KEY)) {
+			assertThat(in.readNBytes(16)).hasSize(16);
+		}
+		// The aborted connection must not poison the pool for the next request
+		try (InputStream in = backend.getRange(KEY, 0, 4)) {
+			assertThat(in.readAllBytes()).hasSize(4);
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.example.demo.web;
+
+import com.example.demo.model.dto.FileDownload;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DownloadCountPolicyTests {
+
+	private static final String LINK = "s/token";
+
+	private final DownloadCountPolicy policy = new DownloadCountPolicy(Duration.ofHours(1), 1000);
+	private final FileDownload download = download("a".repeat(64));
+
+	@Test
+	void everyFullDownloadCounts() {
+		assertThat(policy.counts(LINK, download, true, get())).isTrue();
+		assertThat(policy.counts(LINK, download, true, get())).isTrue();
+	}
+
+	@Test
+	void onlyAMatchingRevalidationIsFree() {
+		MockHttpServletRequest madeUp = get();
+		madeUp.addHeader(HttpHeaders.IF_NONE_MATCH, "\"anything\"");
+		assertThat(policy.counts(LINK, download, true, madeUp)).isTrue();
+
+		MockHttpServletRequest revalidation = get();
+		revalidation.addHeader(HttpHeaders.IF_NONE_MATCH, download.getETag());
+		assertThat(policy.counts(LINK, download, true, revalidation)).isFalse();
+	}
+
+	@Test
+	void aRangeFromTheSecondByteCountsUnlessItResumesACountedTransfer() {
+		assertThat(policy.counts(LINK, download, true, range("bytes=1-"))).isTrue();
+
+		DownloadCountPolicy fresh = new DownloadCountPolicy(Duration.ofHours(1), 1000);
+		assertThat(fresh.counts(LINK, download, true, range("bytes=0-499"))).isTrue();
+		assertThat(fresh.counts(LINK, download, true, range("bytes=500-"))).isFalse();
+		assertThat(fresh.counts("s/other", download, true, range("bytes=500-"))).isTrue();
+		assertThat(fresh.counts(LINK, download("b".repeat(64)), true, range("bytes=500-"))).isTrue();
+	}
+
+	@Test
+	void aRangeWithAStaleIfRangeIsAFullDownload() {
+		policy.counts(LINK, download, true, get());
+
+		assertThat(policy.counts(LINK, download, false, range("bytes=500-"))).isTrue();
+	}
+
+	@Test
+	void responsesWithoutABodyDoNotCount() {
+		assertThat(policy.counts(LINK, download, true, range("bytes=5000-"))).isFalse();
+		assertThat(policy.counts(LINK, download, true, range("lines=1-"))).isFalse();
+		assertThat(policy.counts(LINK, download, true, new MockHttpServletRequest("HEAD", "/files/s/token"))).isFalse();
+	}
+
+	private static MockHttpServletRequest get() {
+		return new MockHttpServletRequest("GET", "/files/s/token");
+	}
+
+	private static MockHttpServletRequest range(String range) {
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.RANGE, range);
+		return request;
+	}
+
+	private static FileDownload download(String contentHash) {
+		return new FileDownload(new ByteArrayResource(new byte[1000]), "file.bin", 1000, contentHash,
+				Instant.parse("2024-01-01T00:00:00Z"));
+	}
+}
@@ -0,0 +1,86 @@
+package com.example.demo.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTests {
+
+	@Test
+	void allowsTheBurstThenRejectsWithTheTimeToTheNextPermit() {
+		TokenBucket bucket = new TokenBucket(1, 3);
+
+		assertThat(bucket.tryAcquire(1)).isZero();
+		assertThat(bucket.tryAcquire(1)).isZero();
+		assertThat(bucket.tryAcquire(1)).isZero();
+
+		long wait = bucket.tryAcquire(1);
+		assertThat(wait).isPositive().isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+	}
+
+	@Test
+	void rejectedRequestsDoNotConsumePermits() {
+		TokenBucket bucket = new TokenBucket(1, 1);
+		assertThat(bucket.tryAcquire(1)).isZero();
+
+		long first = bucket.tryAcquire(1);
+		long second = bucket.tryAcquire(1);
+		assertThat(second).isLessThanOrEqualTo(first);
+	}
+
+	@Test
+	void checkingTakesNothingAndRefundsGiveBack() {
+		TokenBucket bucket = new TokenBucket(0.001, 2);
+
+		assertThat(bucket.availableIn(1)).isZero();
+		assertThat(bucket.availableIn(1)).isZero();
+		assertThat(bucket.tryAcquire(1)).isZero();
+		assertThat(bucket.tryAcquire(1)).isZero();
+		assertThat(bucket.availableIn(1)).isPositive();
+
+		bucket.refund(1);
+		assertThat(bucket.availableIn(1)).isZero();
+		assertThat(bucket.tryAcquire(1)).isZero();
+		assertThat(bucket.tryAcquire(1)).isPositive();
+	}
+
+	@Test
+	void reserveGoesIntoDebtAndReportsTheDelay() {
+		TokenBucket bucket = new TokenBucket(1000, 1000);
+
+		assertThat(bucket.reserve(1000)).isZero();
+		long wait = bucket.reserve(500);
+		assertThat(wait).isBetween(TimeUnit.MILLISECONDS.toNanos(400), TimeUnit.MILLISECONDS.toNanos(500));
+		assertThat(bucket.tryAcquire(1)).isPositive();
+	}
+
+	@Test
+	void concurrentCallersNeverExceedTheBurst() throws InterruptedException {
+		TokenBucket bucket = new TokenBucket(0.001, 100);
+		AtomicInteger granted = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+
+		try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+			for (int i = 0; i < 8; i++) {
+				executor.submit(() -> {
+					start.await();
+					for (int j = 0; j < 1000; j++) {
+						if (bucket.tryAcquire(1) == 0) {
+							granted.incrementAndGet();
+						}
+					}
+					return null;
+				});
+			}
+			start.countDown();
+		}
+
+		assertThat(granted.get()).isEqualTo(100);
+	}
+}
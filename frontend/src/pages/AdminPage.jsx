@@ -33,6 +33,7 @@ const AdminPage = () => {
     const [users, setUsers] = useState([]);
     const [selectedUser, setSelectedUser] = useState(null);
     const [userFiles, setUserFiles] = useState([]);
+    const [selectedFileIds, setSelectedFileIds] = useState([]);
     const [error, setError] = useState(null);
     const [success, setSuccess] = useState(null);
     const [loading, setLoading] = useState(true);
@@ -48,7 +49,7 @@ const AdminPage = () => {
 
     const fetchUsers = async () => {
         try {
-            const response = await fetch('http://172.17.0.3:8080/api/users/admin/users', {
+            const response = await fetch('http://172.17.0.3:8080/api/users/admin/users/summary', {
                 headers: {
                     'Authorization': `Bearer ${localStorage.getItem('token')}`
                 }
@@ -74,6 +75,7 @@ const AdminPage = () => {
             if (!response.ok) throw new Error('Failed to fetch user files');
             const data = await response.json();
             setUserFiles(data);
+            setSelectedFileIds([]);
             setError(null);
         } catch (err) {
             setError('Failed to load user files');
@@ -103,6 +105,7 @@ const AdminPage = () => {
 
             setSuccess('File deleted successfully!');
             fetchUserFiles(selectedUser.userId);
+            fetchUsers();
         } catch (err) {
             setError('Failed to delete file');
         }
@@ -150,6 +153,60 @@ const AdminPage = () => {
      	 }
 	    };
 
+    const toggleFileSelection = (fileId) => {
+        setSelectedFileIds(prev =>
+            prev.includes(fileId) ? prev.filter(id => id !== fileId) : [...prev, fileId]
+        );
+    };
+
+    const toggleSelectAll = () => {
+        setSelectedFileIds(selectedFileIds.length === userFiles.length ? [] : userFiles.map(file => file.fileId));
+    };
+
+    const runBulkAction = async (path, successMessage) => {
+        const response = await fetch(`http://172.17.0.3:8080/api/files/bulk/${path}`, {
+            method: 'POST',
+            headers: {
+                'Authorization': `Bearer ${localStorage.getItem('token')}`,
+                'Content-Type': 'application/json'
+            },
+            body: JSON.stringify({fileIds: selectedFileIds})
+        });
+        if (!response.ok) throw new Error('Bulk action failed');
+
+        const results = await response.json();
+        const failed = results.filter(result => result.status !== 'OK').length;
+        if (failed > 0) {
+            setError(`${failed} of ${results.length} files could not be updated`);
+        } else {
+            setSuccess(successMessage);
+        }
+        fetchUserFiles(selectedUser.userId);
+        fetchUsers();
+    };
+
+    const handleBulkDelete = async () => {
+        if (selectedFileIds.length === 0) return;
+        if (!window.confirm(`Delete ${selectedFileIds.length} selected files?`)) return;
+
+        try {
+            await runBulkAction(`delete?userId=${selectedUser.userId}`, 'Selected files deleted successfully!');
+        } catch (err) {
+            setError('Failed to delete files');
+        }
+    };
+
+    const handleBulkShare = async (enabled) => {
+        if (selectedFileIds.length === 0) return;
+
+        try {
+            await runBulkAction(`share?userId=${selectedUser.userId}&enabled=${enabled}`,
+                enabled ? 'Sharing enabled for selected files!' : 'Sharing disabled for selected files!');
+        } catch (err) {
+            setError('Failed to update sharing');
+        }
+    };
+
     const formatFileSize = (bytes) => {
         if (bytes === 0) return '0 Bytes';
         const k = 1024;
@@ -191,6 +248,9 @@ const AdminPage = () => {
                                         >
                                             <p className="font-medium text-gray-900">{user.username}</p>
                                             <p className="text-sm text-gray-500">{user.email}</p>
+                                            <p className="text-xs text-gray-400">
+                                                {user.fileCount} {user.fileCount === 1 ? 'file' : 'files'} · {formatFileSize(user.totalBytes)}
+                                            </p>
                                         </button>
                                     ))}
                                 </div>
@@ -229,6 +289,42 @@ const AdminPage = () => {
                             ) : (
                                 selectedUser && (
                                     <div className="divide-y divide-gray-200">
+                                        {userFiles.length > 0 && (
+                                            <div className="py-2 flex items-center justify-between">
+                                                <label className="flex items-center text-sm text-gray-600">
+                                                    <input
+                                                        type="checkbox"
+                                                        className="mr-2"
+                                                        checked={selectedFileIds.length === userFiles.length}
+                                                        onChange={toggleSelectAll}
+                                                    />
+                                                    Select all ({selectedFileIds.length} selected)
+                                                </label>
+                                                <div className="flex space-x-2">
+                                                    <button
+                                                        onClick={() => handleBulkShare(true)}
+                                                        disabled={selectedFileIds.length === 0}
+                                                        className="px-3 py-1 text-sm text-indigo-600 hover:bg-indigo-50 rounded-md disabled:text-gray-300"
+                                                    >
+                                                        Share selected
+                                                    </button>
+                                                    <button
+                                                        onClick={() => handleBulkShare(false)}
+                                                        disabled={selectedFileIds.length === 0}
+                                                        className="px-3 py-1 text-sm text-gray-600 hover:bg-gray-50 rounded-md disabled:text-gray-300"
+                                                    >
+                                                        Unshare selected
+                                                    </button>
+                                                    <button
+                                                        onClick={handleBulkDelete}
+                                                        disabled={selectedFileIds.length === 0}
+                                                        className="px-3 py-1 text-sm text-red-600 hover:bg-red-50 rounded-md disabled:text-gray-300"
+                                                    >
+                                                        Delete selected
+                                                    </button>
+                                                </div>
+                                            </div>
+                                        )}
                                         {userFiles.length === 0 ? (
                                             <p className="text-gray-500 text-center py-4">No files found</p>
                                         ) : (
@@ -236,6 +332,12 @@ const AdminPage = () => {
                                                 <div key={file.fileId}
                                                      className="py-4 flex items-center justify-between">
                                                     <div className="flex items-center">
+                                                        <input
+                                                            type="checkbox"
+                                                            className="mr-3"
+                                                            checked={selectedFileIds.includes(file.fileId)}
+                                                            onChange={() => toggleFileSelection(file.fileId)}
+                                                        />
                                                         <File className="h-6 w-6 text-gray-400 mr-3"/>
                                                         <div>
                                                             <p className="text-sm font-medium text-gray-900">{file.fileName}</p>
@@ -1,7 +1,7 @@
 import React, { useState, useEffect } from 'react';
 import { useAuth } from '../hooks/useAuth';
 import DashboardLayout from '../layouts/DashboardLayout';
-import { Upload, File, Trash2, Download, Share2 } from 'lucide-react';
+import { Upload, File, Trash2, Download, Share2, Archive } from 'lucide-react';
 
 const Alert = ({ variant = 'info', children, onDismiss }) => {
   const styles = {
@@ -25,6 +25,44 @@ const Alert = ({ variant = 'info', children, onDismiss }) => {
   );
 };
 
+const hasPreview = (fileType) =>
+  !!fileType && (fileType.startsWith('image/') || fileType === 'application/pdf');
+
+// Fetched with the bearer token (an <img src> cannot send it); the browser cache revalidates by ETag
+const FilePreview = ({ file, userId }) => {
+  const [src, setSrc] = useState(null);
+
+  useEffect(() => {
+    if (!hasPreview(file.fileType)) return undefined;
+    let objectUrl = null;
+    let cancelled = false;
+
+    fetch(`http://172.17.0.3:8080/api/files/${file.fileId}/preview?userId=${userId}&size=128`, {
+      headers: {
+        'Authorization': `Bearer ${localStorage.getItem('token')}`
+      }
+    })
+      .then((response) => (response.ok ? response.blob() : null))
+      .then((blob) => {
+        if (blob && !cancelled) {
+          objectUrl = URL.createObjectURL(blob);
+          setSrc(objectUrl);
+        }
+      })
+      .catch(() => {});
+
+    return () => {
+      cancelled = true;
+      if (objectUrl) URL.revokeObjectURL(objectUrl);
+    };
+  }, [file.fileId, file.fileType, userId]);
+
+  if (!src) {
+    return <File className="h-6 w-6 text-gray-400 mr-3" />;
+  }
+  return <img src={src} alt="" className="h-10 w-10 object-cover rounded mr-3" />;
+};
+
 const DashboardPage = () => {
   const { user } = useAuth();
   const [files, setFiles] = useState([]);
@@ -32,6 +70,8 @@ const DashboardPage = () => {
   const [error, setError] = useState(null);
   const [success, setSuccess] = useState(null);
   const [userId, setUserId] = useState(null);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   useEffect(() => {
     const token = localStorage.getItem('token');
@@ -49,21 +89,32 @@ const DashboardPage = () => {
     }
   }, [userId]);
 
-  const fetchFiles = async () => {
+  const fetchFiles = async (cursor = null) => {
     try {
-      const response = await fetch(`http://172.17.0.3:8080/api/files/user/${userId}`, {
+      const params = new URLSearchParams({ limit: '50' });
+      if (cursor) params.append('cursor', cursor);
+
+      const response = await fetch(`http://172.17.0.3:8080/api/files/user/${userId}/page?${params}`, {
         headers: {
           'Authorization': `Bearer ${localStorage.getItem('token')}`
         }
       });
       if (!response.ok) throw new Error('Failed to fetch files');
       const data = await response.json();
-      setFiles(data);
+      setFiles(cursor ? (prev) => [...prev, ...data.items] : data.items);
+      setNextCursor(data.nextCursor);
     } catch (err) {
       setError('Failed to load files');
     }
   };
 
+  const loadMore = async () => {
+    if (!nextCursor) return;
+    setLoadingMore(true);
+    await fetchFiles(nextCursor);
+    setLoadingMore(false);
+  };
+
   const handleFileUpload = async (event) => {
     const file = event.target.files[0];
     if (!file || !userId) return;
@@ -142,6 +193,35 @@ const DashboardPage = () => {
     }
   };
 
+  const handleDownloadAll = async () => {
+    if (!userId || files.length === 0) return;
+
+    try {
+      const response = await fetch(`http://172.17.0.3:8080/api/files/download/zip?userId=${userId}`, {
+        method: 'POST',
+        headers: {
+          'Authorization': `Bearer ${localStorage.getItem('token')}`,
+          'Content-Type': 'application/json'
+        },
+        body: JSON.stringify({ fileIds: files.map((file) => file.fileId) })
+      });
+
+      if (!response.ok) throw new Error('Download failed');
+
+      const blob = await response.blob();
+      const url = window.URL.createObjectURL(blob);
+      const a = document.createElement('a');
+      a.href = url;
+      a.download = 'files.zip';
+      document.body.appendChild(a);
+      a.click();
+      document.body.removeChild(a);
+      window.URL.revokeObjectURL(url);
+    } catch (err) {
+      setError('Failed to download files');
+    }
+  };
+
 const handleShare = async (fileId) => {
   try {
     const response = await fetch(`http://13.60.249.198:8080/api/files/${fileId}/share?userId=${userId}`, {
@@ -248,7 +328,19 @@ const handleShare = async (fileId) => {
 
         {/* Files List */}
         <div>
-          <h2 className="text-xl font-bold text-gray-900 mb-4">Your Files</h2>
+          <div className="flex items-center justify-between mb-4">
+            <h2 className="text-xl font-bold text-gray-900">Your Files</h2>
+            {files.length > 0 && (
+              <button
+                onClick={handleDownloadAll}
+                className="flex items-center text-sm font-medium text-indigo-600 hover:text-indigo-800"
+                title="Download all loaded files as a ZIP archive"
+              >
+                <Archive className="h-4 w-4 mr-1" />
+                Download all
+              </button>
+            )}
+          </div>
           <div className="bg-white shadow rounded-lg overflow-hidden">
             {files.length === 0 ? (
               <div className="p-4 text-center text-gray-500">
@@ -259,7 +351,7 @@ const handleShare = async (fileId) => {
                 {files.map((file) => (
                   <li key={file.fileId} className="p-4 flex items-center justify-between hover:bg-gray-50">
                     <div className="flex items-center">
-                      <File className="h-6 w-6 text-gray-400 mr-3" />
+                      <FilePreview file={file} userId={userId} />
                       <div>
                         <p className="text-sm font-medium text-gray-900">{file.fileName}</p>
                         <p className="text-sm text-gray-500">{formatFileSize(file.fileSize)}</p>
@@ -292,6 +384,17 @@ const handleShare = async (fileId) => {
                 ))}
               </ul>
             )}
+            {nextCursor && (
+              <div className="p-4 text-center border-t border-gray-200">
+                <button
+                  onClick={loadMore}
+                  disabled={loadingMore}
+                  className="text-sm font-medium text-indigo-600 hover:text-indigo-800 disabled:text-gray-400"
+                >
+                  {loadingMore ? 'Loading...' : 'Load more'}
+                </button>
+              </div>
+            )}
           </div>
         </div>
       </div>